@@ -0,0 +1,65 @@
+package com.github.mati1979.play.hysterix;
+
+import com.github.mati1979.play.hysterix.isolation.HysterixSemaphore;
+import play.libs.F;
+
+/**
+ * Command wrapping a blocking client (e.g. JDBC or SOAP), runBlocking is executed on a virtual thread (or a bounded
+ * platform pool on older JVMs) so play's event loop is never blocked.
+ *
+ * Calls are interrupted after getExecutionTimeoutMs (or earlier if request deadline is closer) and number of concurrent calls per command is capped,
+ * calls over the cap are rejected to the fallback. If command has a thread pool key, runBlocking is executed
+ * on that thread pool instead, which also bounds concurrency.
+ */
+public abstract class BlockingHysterixCommand<T> extends HysterixCommand<T> {
+
+    private static final play.Logger.ALogger logger = play.Logger.of(BlockingHysterixCommand.class);
+
+    protected BlockingHysterixCommand(final HysterixRequestContext hysterixRequestContext) {
+        super(hysterixRequestContext);
+    }
+
+    protected abstract T runBlocking() throws Exception;
+
+    @Override
+    public long getExecutionTimeoutMs() {
+        return hysterixRequestContext.getHysterixContext().getHysterixSettings().getBlockingExecutionTimeoutMs();
+    }
+
+    public int getMaxConcurrentRequests() {
+        return hysterixRequestContext.getHysterixContext().getHysterixSettings().getBlockingExecutionMaxConcurrentRequests();
+    }
+
+    @Override
+    protected final F.Promise<T> run() {
+        return runBlockingIsolated(metadata, getEffectiveTimeoutMs());
+    }
+
+    @Override
+    protected F.Promise<T> runIsolated(final HysterixResponseMetadata runMetadata, final long timeoutMs) {
+        if (getThreadPoolKey().isPresent()) {
+            return submitToThreadPool(() -> runBlockingTimed(runMetadata), timeoutMs, runMetadata);
+        }
+
+        return runBlockingIsolated(runMetadata, timeoutMs);
+    }
+
+    private F.Promise<T> runBlockingIsolated(final HysterixResponseMetadata runMetadata, final long timeoutMs) {
+        final HysterixContext hysterixContext = hysterixRequestContext.getHysterixContext();
+        final HysterixSemaphore executionSemaphore = hysterixContext.getHysterixSemaphoreHolder().getExecutionSemaphore(this, getMaxConcurrentRequests());
+        if (!executionSemaphore.tryAcquire()) {
+            logger.warn("Blocking call rejected - too many concurrent calls, command:" + getCommandKey());
+            runMetadata.markSemaphoreRejected();
+            return F.Promise.throwing(new HysterixException("Semaphore rejected, max concurrent requests:" + executionSemaphore.getMaxConcurrentRequests()));
+        }
+
+        return hysterixContext.getHysterixBlockingExecutor().submit(() -> runBlockingTimed(runMetadata), timeoutMs, executionSemaphore::release);
+    }
+
+    private T runBlockingTimed(final HysterixResponseMetadata runMetadata) throws Exception {
+        runMetadata.markPhase(HysterixExecutionPhase.RUN_START);
+
+        return runBlocking();
+    }
+
+}
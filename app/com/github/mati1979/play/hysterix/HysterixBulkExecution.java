@@ -0,0 +1,139 @@
+package com.github.mati1979.play.hysterix;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import play.libs.F;
+import play.libs.HttpExecution;
+import scala.concurrent.ExecutionContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Executes a list of commands with at most maxParallelism of them in flight, a new command is started
+ * as soon as a previous one completes. Finishes when all commands completed or when deadline passes.
+ * Commands are always started on play's execution context of the calling request, never on a thread which completed
+ * a previous command, and by a loop, so commands completing synchronously (e.g. short-circuited) do not nest calls.
+ */
+final class HysterixBulkExecution<T> {
+
+    private static final play.Logger.ALogger logger = play.Logger.of(HysterixBulkExecution.class);
+
+    private final static ScheduledExecutorService SCHEDULED_EXECUTOR_SERVICE = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+            .setDaemon(true)
+            .setNameFormat("hysterix-bulk-deadline-%d")
+            .build());
+
+    private final List<? extends HysterixCommand<T>> commands;
+    private final AtomicReferenceArray<HysterixBulkItem<T>> items;
+    private final AtomicInteger nextIndex = new AtomicInteger();
+    private final AtomicInteger remaining;
+    /* commands waiting to be started, the one who raises it from 0 schedules the start loop */
+    private final AtomicInteger pendingStarts = new AtomicInteger();
+    private final AtomicBoolean finished = new AtomicBoolean();
+    private final F.RedeemablePromise<List<HysterixBulkItem<T>>> promise = F.RedeemablePromise.empty();
+
+    private volatile ScheduledFuture<?> deadline;
+
+    //captured on the calling thread, so commands run with its http context
+    private final ExecutionContext executionContext = HttpExecution.defaultContext();
+
+    HysterixBulkExecution(final List<? extends HysterixCommand<T>> commands) {
+        this.commands = commands;
+        this.items = new AtomicReferenceArray<>(commands.size());
+        this.remaining = new AtomicInteger(commands.size());
+    }
+
+    //timeoutMs <= 0 means no deadline
+    F.Promise<List<HysterixBulkItem<T>>> execute(final int maxParallelism, final long timeoutMs) {
+        if (commands.isEmpty()) {
+            finish();
+            return promise;
+        }
+        if (timeoutMs > 0) {
+            deadline = SCHEDULED_EXECUTOR_SERVICE.schedule(() -> onDeadline(), timeoutMs, TimeUnit.MILLISECONDS);
+        }
+
+        final int parallelism = Math.max(1, Math.min(maxParallelism, commands.size()));
+        for (int i = 0; i < parallelism; i++) {
+            requestStart();
+        }
+
+        return promise;
+    }
+
+    private void requestStart() {
+        if (pendingStarts.getAndIncrement() == 0) {
+            executionContext.execute(() -> startPending());
+        }
+    }
+
+    //a command completing synchronously only raises pendingStarts, it is started by the next iteration, not by a nested call
+    private void startPending() {
+        do {
+            startNext();
+        } while (pendingStarts.decrementAndGet() > 0);
+    }
+
+    private void startNext() {
+        if (finished.get()) {
+            return;
+        }
+        final int index = nextIndex.getAndIncrement();
+        if (index >= commands.size()) {
+            return;
+        }
+
+        final HysterixCommand<T> command = commands.get(index);
+        final F.Promise<HysterixResponse<T>> response;
+        try {
+            response = command.execute();
+        } catch (final RuntimeException e) {
+            complete(HysterixBulkItem.failure(index, command, e));
+            return;
+        }
+
+        response.onRedeem(r -> complete(HysterixBulkItem.success(index, command, r)), HysterixExecution.sameThreadContext());
+        response.onFailure(t -> complete(HysterixBulkItem.failure(index, command, t)), HysterixExecution.sameThreadContext());
+    }
+
+    private void complete(final HysterixBulkItem<T> item) {
+        items.set(item.getIndex(), item);
+        if (remaining.decrementAndGet() == 0) {
+            finish();
+            return;
+        }
+
+        requestStart();
+    }
+
+    private void onDeadline() {
+        logger.debug("Bulk execution deadline passed, completed:" + (commands.size() - remaining.get()) + "/" + commands.size());
+        finish();
+    }
+
+    private void finish() {
+        if (!finished.compareAndSet(false, true)) {
+            return;
+        }
+        if (deadline != null) {
+            deadline.cancel(false);
+        }
+
+        final int started = Math.min(nextIndex.get(), commands.size());
+        final List<HysterixBulkItem<T>> result = new ArrayList<>(commands.size());
+        for (int i = 0; i < commands.size(); i++) {
+            final HysterixBulkItem<T> item = items.get(i);
+            result.add(item != null ? item : HysterixBulkItem.notCompleted(i, commands.get(i), i < started));
+        }
+
+        promise.success(result);
+    }
+
+}
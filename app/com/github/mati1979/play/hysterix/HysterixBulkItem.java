@@ -0,0 +1,78 @@
+package com.github.mati1979.play.hysterix;
+
+import java.util.Optional;
+
+/**
+ * Outcome of a single command executed via HysterixRequestContext.executeAll, items are returned in the same order
+ * as commands were passed in. Item is not completed if bulk deadline passed before command finished (or even started).
+ */
+public final class HysterixBulkItem<T> {
+
+    private final int index;
+    private final HysterixCommand<T> command;
+    private final boolean started;
+    private final Optional<HysterixResponse<T>> response;
+    private final Optional<Throwable> failure;
+
+    private HysterixBulkItem(final int index,
+                             final HysterixCommand<T> command,
+                             final boolean started,
+                             final Optional<HysterixResponse<T>> response,
+                             final Optional<Throwable> failure) {
+        this.index = index;
+        this.command = command;
+        this.started = started;
+        this.response = response;
+        this.failure = failure;
+    }
+
+    static <T> HysterixBulkItem<T> success(final int index, final HysterixCommand<T> command, final HysterixResponse<T> response) {
+        return new HysterixBulkItem<>(index, command, true, Optional.of(response), Optional.empty());
+    }
+
+    static <T> HysterixBulkItem<T> failure(final int index, final HysterixCommand<T> command, final Throwable t) {
+        return new HysterixBulkItem<>(index, command, true, Optional.empty(), Optional.of(t));
+    }
+
+    static <T> HysterixBulkItem<T> notCompleted(final int index, final HysterixCommand<T> command, final boolean started) {
+        return new HysterixBulkItem<>(index, command, started, Optional.empty(), Optional.empty());
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public HysterixCommand<T> getCommand() {
+        return command;
+    }
+
+    public boolean isStarted() {
+        return started;
+    }
+
+    public boolean isCompleted() {
+        return response.isPresent() || failure.isPresent();
+    }
+
+    //present if command completed, also when response came from fallback, cache or is stale - see its metadata
+    public Optional<HysterixResponse<T>> getResponse() {
+        return response;
+    }
+
+    //present if command failed and no fallback was available
+    public Optional<Throwable> getFailure() {
+        return failure;
+    }
+
+    @Override
+    public String toString() {
+        return "HysterixBulkItem{" +
+                "index=" + index +
+                ", commandKey=" + command.getCommandKey() +
+                ", started=" + started +
+                ", response=" + response +
+                ", failure=" + failure +
+                '}';
+    }
+
+}
@@ -1,11 +1,28 @@
 package com.github.mati1979.play.hysterix;
 
+import com.github.mati1979.play.hysterix.circuit.GroupHysterixCircuitBreaker;
 import com.github.mati1979.play.hysterix.circuit.HysterixCircuitBreaker;
+import com.github.mati1979.play.hysterix.circuit.HysterixCircuitBreakerHolder;
 import com.github.mati1979.play.hysterix.event.HysterixCommandEvent;
+import com.github.mati1979.play.hysterix.isolation.HysterixSemaphore;
+import com.github.mati1979.play.hysterix.isolation.HysterixRateLimiter;
+import com.github.mati1979.play.hysterix.isolation.HysterixThreadPool;
+import com.github.mati1979.play.hysterix.jfr.HysterixFlightRecorder;
+import com.google.common.collect.ImmutableList;
 import play.libs.F;
+import play.libs.HttpExecution;
+import scala.concurrent.ExecutionContext;
 
+import java.util.Iterator;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public abstract class HysterixCommand<T> {
 
@@ -17,6 +34,15 @@ public abstract class HysterixCommand<T> {
 
     protected final HysterixRequestContext hysterixRequestContext;
 
+    /* index of this command in HysterixCommandRegistry, resolved lazily since command key is only known to subclasses */
+    private int commandIndex = -1;
+
+    /* whether this command holds an admission ticket which has to be released on completion */
+    private final AtomicBoolean admitted = new AtomicBoolean(false);
+
+    /* whether this command was allowed through an open group circuit, i.e. took its single test, only such a call closes it */
+    private volatile boolean groupCircuitTest = false;
+
     protected HysterixCommand(final HysterixRequestContext hysterixRequestContext) {
         this.hysterixRequestContext = hysterixRequestContext;
     }
@@ -30,8 +56,14 @@ public abstract class HysterixCommand<T> {
     }
 
     public HysterixCircuitBreaker getHysterixCircuitBreaker() {
-        if (hysterixRequestContext.getHysterixContext().getHysterixSettings().isCircuitBreakerEnabled()) {
-            return hysterixRequestContext.getHysterixContext().getHysterixCircuitBreakerHolder().getCircuitBreaker(this);
+        final HysterixSettings hysterixSettings = hysterixRequestContext.getHysterixContext().getHysterixSettings();
+        if (hysterixSettings.isCircuitBreakerEnabled()) {
+            final HysterixCircuitBreakerHolder hysterixCircuitBreakerHolder = hysterixRequestContext.getHysterixContext().getHysterixCircuitBreakerHolder();
+            if (hysterixSettings.isGroupCircuitBreakerEnabled() && getCommandGroupKey().isPresent()) {
+                return hysterixCircuitBreakerHolder.getGroupCommandCircuitBreaker(this);
+            }
+
+            return hysterixCircuitBreakerHolder.getCircuitBreaker(this);
         }
 
         return HysterixCircuitBreaker.NULL;
@@ -43,6 +75,14 @@ public abstract class HysterixCommand<T> {
         return Optional.empty();
     }
 
+    public int getCommandIndex() {
+        if (commandIndex < 0) {
+            commandIndex = hysterixRequestContext.getHysterixContext().getHysterixCommandRegistry().register(getCommandGroupKey().orElse(""), getCommandKey());
+        }
+
+        return commandIndex;
+    }
+
     public Optional<String> getCacheKey() {
         return Optional.empty();
     }
@@ -51,10 +91,63 @@ public abstract class HysterixCommand<T> {
         return Optional.empty();
     }
 
+    //if present, run is invoked on a named thread pool with a bounded queue, calls not fitting into the queue are rejected
+    public Optional<String> getThreadPoolKey() {
+        return Optional.empty();
+    }
+
+    //opt-in, serves last successful response (if not older than max staleness) when remote call fails or circuit is open
+    public boolean isLastKnownGoodCacheEnabled() {
+        return hysterixRequestContext.getHysterixContext().getHysterixSettings().isLastKnownGoodCacheEnabled();
+    }
+
+    //successful remote calls slower than this are marked as SLOW_CALL and count towards circuit breaker slow call rate, 0 disables
+    public long getSlowCallDurationThresholdMs() {
+        return hysterixRequestContext.getHysterixContext().getHysterixSettings().getCircuitBreakerSlowCallDurationThresholdMs();
+    }
+
+    //own timeout of a remote call, 0 means none - client used in run is expected to time out on its own
+    public long getExecutionTimeoutMs() {
+        return 0;
+    }
+
+    //own timeout capped by what is left of request deadline budget
+    protected long getEffectiveTimeoutMs() {
+        final long executionTimeoutMs = getExecutionTimeoutMs();
+        final Optional<Long> remainingBudgetMs = hysterixRequestContext.getRemainingBudgetMs();
+        if (!remainingBudgetMs.isPresent()) {
+            return executionTimeoutMs;
+        }
+
+        final long budgetMs = Math.max(1, remainingBudgetMs.get());
+
+        return executionTimeoutMs > 0 ? Math.min(executionTimeoutMs, budgetMs) : budgetMs;
+    }
+
+    public HysterixCommandPriority getPriority() {
+        return HysterixCommandPriority.DEFAULT;
+    }
+
     public F.Promise<HysterixResponse<T>> execute() {
+        return execute(HttpExecution.defaultContext());
+    }
+
+    public CompletionStage<HysterixResponse<T>> executeStage() {
+        return executeStage(HttpExecution.defaultContext());
+    }
+
+    //executor is used for all completion callbacks, including fallbacks, HysterixExecution.sameThread() avoids any context switch
+    public CompletionStage<HysterixResponse<T>> executeStage(final Executor executor) {
+        final ExecutionContext executionContext = HysterixExecution.toExecutionContext(executor);
+
+        return HysterixExecution.toStage(execute(executionContext), executionContext);
+    }
+
+    private F.Promise<HysterixResponse<T>> execute(final ExecutionContext executionContext) {
         metadata.getStopwatch().start();
+        metadata.markPhase(HysterixExecutionPhase.QUEUED);
 
-        return tryCall().map(response -> onSuccess(response)).recoverWith(t -> onRecover(t));
+        return tryCall().map(response -> onSuccess(response), executionContext).recoverWith(t -> onRecover(t, executionContext), executionContext);
     }
 
     public HysterixResponseMetadata getMetadata() {
@@ -65,26 +158,86 @@ public abstract class HysterixCommand<T> {
         return Optional.empty();
     }
 
+    //ordered chain of fallbacks, each one is invoked lazily only if all previous ones were not available or failed
+    public List<HysterixFallback<T>> getFallbackChain() {
+        return ImmutableList.of(this::getFallbackTo);
+    }
+
     private F.Promise<T> tryCall() {
         logger.debug("tryCall");
-        if (!getHysterixCircuitBreaker().allowRequest()) {
+        final Optional<Long> remainingBudgetMs = hysterixRequestContext.getRemainingBudgetMs();
+        if (remainingBudgetMs.isPresent()) {
+            metadata.setRemainingBudgetMs(remainingBudgetMs.get());
+            if (hysterixRequestContext.isDeadlineExceeded()) {
+                logger.debug("request deadline exceeded:" + getCommandKey());
+                metadata.markDeadlineExceeded();
+                return F.Promise.throwing(new HysterixException("Request deadline exceeded!"));
+            }
+        }
+
+        metadata.markPhase(HysterixExecutionPhase.BREAKER_CHECK);
+        //joining a call already in flight costs no remote call, so it takes neither a rate limiter token nor an admission ticket
+        final Optional<F.Promise<T>> inFlight = joinInFlight();
+        if (inFlight.isPresent()) {
+            logger.debug("request joined in-flight call:" + getCommandKey());
+            return inFlight.get();
+        }
+
+        //checked before circuit breaker so that a rejected call does not take half open circuit's single test request
+        final Optional<HysterixRateLimiter> rateLimiter = hysterixRequestContext.getHysterixContext().getHysterixRateLimiterHolder().findRateLimiter(this);
+        if (rateLimiter.isPresent() && !rateLimiter.get().tryAcquire()) {
+            logger.debug("request not allowed - rate limited:" + getCommandKey());
+            metadata.markRateLimited();
+            return F.Promise.throwing(new HysterixException("Rate limit exceeded!"));
+        }
+
+        //admission is also checked before circuit breaker, a shed call must not take half open circuit's single test request
+        if (!hysterixRequestContext.getHysterixContext().getHysterixAdmissionController().tryAdmit(getPriority())) {
+            logger.debug("request not admitted - load shed:" + getCommandKey() + ",priority:" + getPriority());
+            metadata.markLoadShed();
+            return F.Promise.throwing(new HysterixException("Load shed, priority:" + getPriority()));
+        }
+        //admission ticket is released on completion (executionComplete) or if the call fails to start
+        admitted.set(true);
+
+        final HysterixCircuitBreaker circuitBreaker = getHysterixCircuitBreaker();
+        final boolean groupCircuitOpen = circuitBreaker instanceof GroupHysterixCircuitBreaker
+                && ((GroupHysterixCircuitBreaker) circuitBreaker).getGroupCircuitBreaker().isOpen();
+        if (!circuitBreaker.allowRequest()) {
             logger.debug("request not allowed - short circuit:" + getCommandKey());
-            metadata.markShortCircuited();
+            if (groupCircuitOpen && ((GroupHysterixCircuitBreaker) circuitBreaker).isShortCircuitedByGroup()) {
+                metadata.markShortCircuitedByGroup();
+            } else {
+                metadata.markShortCircuited();
+            }
             return F.Promise.throwing(new HysterixException("Circuit Breaker open!"));
         }
+        groupCircuitTest = groupCircuitOpen;
 
         logger.debug("request allowed..." + getCommandKey());
 
-        if (isRequestCachingDisabled() || !getRequestCacheKey().isPresent()) {
-            logger.debug("Caching disabled - commandKey:" + getCommandKey());
+        try {
+            if (isRequestCachingDisabled() || !getRequestCacheKey().isPresent()) {
+                logger.debug("Caching disabled - commandKey:" + getCommandKey());
+
+                return callRemote();
+            }
 
-            return callRemote();
+            return tryCache();
+        } catch (final RuntimeException e) {
+            releaseAdmission();
+            throw e;
         }
+    }
 
-        return tryCache();
+    private void releaseAdmission() {
+        if (admitted.compareAndSet(true, false)) {
+            hysterixRequestContext.getHysterixContext().getHysterixAdmissionController().release();
+        }
     }
 
     private F.Promise<T> tryCache() {
+        metadata.markPhase(HysterixExecutionPhase.CACHE);
         final String requestCacheKey = getRequestCacheKey().get();
         logger.debug(String.format("Trying to use request cache, requestCacheKey:%s", requestCacheKey));
 
@@ -97,7 +250,7 @@ public abstract class HysterixCommand<T> {
             }
 
             return cacheResp.getData();
-        });
+        }, HysterixExecution.sameThreadContext());
     }
 
     private Optional<String> getRequestCacheKey() {
@@ -106,36 +259,144 @@ public abstract class HysterixCommand<T> {
 
     protected F.Promise<T> callRemote() {
         logger.debug("Calling remote system for command:" + getCommandKey() + ",url:" + getRemoteUrl().orElse("?"));
-        return run();
+        final Optional<String> requestCacheKey = getRequestCacheKey();
+        if (isGlobalCoalescingEnabled() && requestCacheKey.isPresent()) {
+            final F.Promise<T> promise = hysterixRequestContext.getHysterixContext().getHysterixInFlightCalls()
+                    .execute(requestCacheKey.get(), this::runTimed, metadata::markResponseCoalesced);
+
+            //attached promise is bound by timeout of the command which started the call, not by this command's own deadline
+            return metadata.isResponseCoalesced() ? HysterixExecution.withTimeout(promise, getEffectiveTimeoutMs()) : promise;
+        }
+
+        return runTimed();
+    }
+
+    //request cache of this request takes precedence, a command following another one of the same request is a cache hit
+    private Optional<F.Promise<T>> joinInFlight() {
+        final Optional<String> requestCacheKey = getRequestCacheKey();
+        if (!isGlobalCoalescingEnabled() || !requestCacheKey.isPresent()
+                || isRequestCachingEnabled() && hysterixRequestContext.getHysterixRequestCacheHolder().isClaimed(requestCacheKey.get())) {
+            return Optional.empty();
+        }
+
+        final Optional<F.Promise<T>> inFlight = hysterixRequestContext.getHysterixContext().getHysterixInFlightCalls().join(requestCacheKey.get());
+        if (!inFlight.isPresent()) {
+            return Optional.empty();
+        }
+        metadata.markResponseCoalesced();
+
+        //joined call is bound by timeout of the command which started it, this command's own deadline applies on top
+        return Optional.of(HysterixExecution.withTimeout(inFlight.get(), getEffectiveTimeoutMs()));
+    }
+
+    private F.Promise<T> runTimed() {
+        return runIsolated(metadata, getEffectiveTimeoutMs()).transform(data -> {
+            metadata.markPhase(HysterixExecutionPhase.RUN_END);
+            return data;
+        }, t -> {
+            metadata.markPhase(HysterixExecutionPhase.RUN_END);
+            return t;
+        }, HysterixExecution.sameThreadContext());
+    }
+
+    //identical commands (same request cache key) in flight across web requests share a single remote call
+    public boolean isGlobalCoalescingEnabled() {
+        return hysterixRequestContext.getHysterixContext().getHysterixSettings().isGlobalCoalescingEnabled();
+    }
+
+    //phases and rejections are marked on runMetadata, which is a throwaway one for a background revalidation
+    protected F.Promise<T> runIsolated(final HysterixResponseMetadata runMetadata, final long timeoutMs) {
+        if (!getThreadPoolKey().isPresent()) {
+            runMetadata.markPhase(HysterixExecutionPhase.RUN_START);
+            return HysterixExecution.withTimeout(run(), timeoutMs);
+        }
+
+        //timeout passed to the pool cancels a call still queued, so it never reaches the remote system after caller got a fallback,
+        //outer one covers the asynchronous remote call returned by run
+        return HysterixExecution.withTimeout(submitToThreadPool(() -> {
+            runMetadata.markPhase(HysterixExecutionPhase.RUN_START);
+            return run();
+        }, timeoutMs, runMetadata).flatMap(promise -> promise, HysterixExecution.sameThreadContext()), timeoutMs);
+    }
+
+    protected <R> F.Promise<R> submitToThreadPool(final Callable<R> callable, final long timeoutMs, final HysterixResponseMetadata runMetadata) {
+        final String threadPoolKey = getThreadPoolKey().get();
+        final HysterixThreadPool threadPool = hysterixRequestContext.getHysterixContext().getHysterixThreadPoolHolder().getThreadPool(threadPoolKey);
+        try {
+            return threadPool.submit(callable, timeoutMs, () -> {});
+        } catch (final RejectedExecutionException e) {
+            logger.warn("Thread pool rejected command:" + getCommandKey() + ",threadPoolKey:" + threadPoolKey);
+            runMetadata.markThreadPoolRejected();
+            return F.Promise.throwing(new HysterixException("Thread pool rejected, threadPoolKey:" + threadPoolKey, e));
+        }
     }
 
     private HysterixResponse<T> onSuccess(final T response) {
+        releaseAdmission();
         logger.debug("Successful response url:" + getRemoteUrl().orElse("?"));
         getMetadata().markSuccess();
-        getHysterixCircuitBreaker().markSuccess();
+        final long slowCallDurationThresholdMs = getSlowCallDurationThresholdMs();
+        if (slowCallDurationThresholdMs > 0 && !metadata.isResponseFromCache() && !metadata.isResponseCoalesced()
+                && metadata.getExecutionTime(TimeUnit.MILLISECONDS) > slowCallDurationThresholdMs) {
+            metadata.markSlowCall();
+        }
+        //a slow test request of an open circuit must not close it, slow call rate may be what opened it
+        if (!metadata.isSlowCall() || !getHysterixCircuitBreaker().isOpen()) {
+            markCircuitSuccess(groupCircuitTest);
+        }
+        if (isLastKnownGoodCacheEnabled() && !metadata.isResponseFromCache()) {
+            getRequestCacheKey().ifPresent(requestCacheKey -> getLastKnownGoodCache().put(requestCacheKey, response));
+        }
 
         executionComplete();
 
         return HysterixResponse.create(response, metadata);
     }
 
+    private void markCircuitSuccess(final boolean groupCircuitTest) {
+        final HysterixCircuitBreaker circuitBreaker = getHysterixCircuitBreaker();
+        circuitBreaker.markSuccess();
+        if (groupCircuitTest && circuitBreaker instanceof GroupHysterixCircuitBreaker) {
+            ((GroupHysterixCircuitBreaker) circuitBreaker).markGroupSuccess();
+        }
+    }
+
     private void executionComplete() {
         if (metadata.getStopwatch().isRunning()) {
             metadata.getStopwatch().stop();
         }
+        metadata.markPhase(HysterixExecutionPhase.COMPLETED);
+        HysterixFlightRecorder.commandExecuted(this);
 
         logger.debug("Execution complete, url:" + getRemoteUrl().orElse("?"));
-        hysterixRequestContext.getHysterixRequestLog().addExecutedCommand(this);
-        hysterixRequestContext.getHysterixContext().getEventBus().post(new HysterixCommandEvent(this));
+        final HysterixContext hysterixContext = hysterixRequestContext.getHysterixContext();
+        final boolean sampled = hysterixContext.getHysterixEventSampler().sample(this);
+        if (sampled) {
+            hysterixRequestContext.getHysterixRequestLog().addExecutedCommand(this);
+        }
+        hysterixContext.getEventBus().post(new HysterixCommandEvent(this, sampled));
     }
 
-    private F.Promise<HysterixResponse<T>> onRecover(final Throwable t) throws Throwable {
+    private F.Promise<HysterixResponse<T>> onRecover(final Throwable t, final ExecutionContext executionContext) throws Throwable {
+        releaseAdmission();
         logger.error("Remote call failed, url:" + getRemoteUrl().orElse("?"), t);
         final HysterixSettings hysterixSettings = hysterixRequestContext.getHysterixContext().getHysterixSettings();
         if (t instanceof java.util.concurrent.TimeoutException) {
-            logger.warn("Timeout from service, url:" + getRemoteUrl().orElse("?"));
-            metadata.markTimeout();
+            if (isTimeoutShortenedByDeadline()) {
+                //request ran out of time, not the dependency, so it does not count towards circuit breaker error rate
+                logger.warn("Request deadline exceeded while waiting for service, url:" + getRemoteUrl().orElse("?"));
+                metadata.markDeadlineExceeded();
+            } else {
+                logger.warn("Timeout from service, url:" + getRemoteUrl().orElse("?"));
+                metadata.markTimeout();
+            }
         }
+
+        final Optional<HysterixResponse<T>> staleResponse = tryLastKnownGood();
+        if (staleResponse.isPresent()) {
+            return F.Promise.pure(staleResponse.get());
+        }
+
         if (hysterixSettings.isFallbackEnabled()) {
             logger.debug("onRecover - fallback enabled.");
 
@@ -143,8 +404,7 @@ public abstract class HysterixCommand<T> {
                 metadata.markFailure();
             }
 
-            return getFallbackTo().map(response -> onRecoverSuccess(response))
-                    .orElseThrow(() -> onRecoverFailure(t));
+            return fallback(t, executionContext);
         }
 
         if (!metadata.isError()) {
@@ -156,24 +416,191 @@ public abstract class HysterixCommand<T> {
         throw t;
     }
 
-    private F.Promise<HysterixResponse<T>> onRecoverSuccess(final F.Promise<T> response) {
+    //whether remaining request budget at start was shorter than command's own timeout and has run out since
+    private boolean isTimeoutShortenedByDeadline() {
+        final Optional<Long> remainingBudgetMs = metadata.getRemainingBudget(TimeUnit.MILLISECONDS);
+        final long executionTimeoutMs = getExecutionTimeoutMs();
+
+        return remainingBudgetMs.isPresent() && hysterixRequestContext.isDeadlineExceeded()
+                && (executionTimeoutMs <= 0 || remainingBudgetMs.get() < executionTimeoutMs);
+    }
+
+    private Optional<HysterixResponse<T>> tryLastKnownGood() {
+        if (!isLastKnownGoodCacheEnabled() || !getRequestCacheKey().isPresent()) {
+            return Optional.empty();
+        }
+
+        final String requestCacheKey = getRequestCacheKey().get();
+        final Optional<HysterixLastKnownGoodCache.Entry<T>> entry = getLastKnownGoodCache().get(requestCacheKey);
+        if (!entry.isPresent()) {
+            return Optional.empty();
+        }
+
+        logger.debug("Serving stale response from last known good cache, requestCacheKey:" + requestCacheKey);
+        if (!metadata.isError()) {
+            metadata.markFailure();
+        }
+        metadata.markResponseStale(entry.get().getAge(TimeUnit.MILLISECONDS));
+
+        //every stale hit, short-circuited, shed and rate limited ones included, revalidation is throttled on its own
+        if (hysterixRequestContext.getHysterixContext().getHysterixSettings().isLastKnownGoodCacheRevalidate()) {
+            revalidate(requestCacheKey);
+        }
+
+        executionComplete();
+
+        return Optional.of(HysterixResponse.create(entry.get().getValue(), metadata));
+    }
+
+    //refreshes last known good value in the background, result is reported neither to statistics nor to this command's metadata,
+    //already handed out to the caller. It goes through rate limiter and admission like a real call and is bound by command's
+    //own timeout, not by what is left of the request deadline. With an open circuit it runs only as its half open single test.
+    private void revalidate(final String requestCacheKey) {
+        final HysterixLastKnownGoodCache lastKnownGoodCache = getLastKnownGoodCache();
+        if (!lastKnownGoodCache.tryStartRevalidation(requestCacheKey)) {
+            return;
+        }
+
+        final HysterixContext hysterixContext = hysterixRequestContext.getHysterixContext();
+        final Optional<HysterixRateLimiter> rateLimiter = hysterixContext.getHysterixRateLimiterHolder().findRateLimiter(this);
+        if (rateLimiter.isPresent() && !rateLimiter.get().tryAcquire()
+                || !hysterixContext.getHysterixAdmissionController().tryAdmit(getPriority())) {
+            logger.debug("Revalidation not allowed - rate limited or load shed, requestCacheKey:" + requestCacheKey);
+            lastKnownGoodCache.finishRevalidation(requestCacheKey);
+            return;
+        }
+
+        final Runnable finish = () -> {
+            hysterixContext.getHysterixAdmissionController().release();
+            lastKnownGoodCache.finishRevalidation(requestCacheKey);
+        };
+        final HysterixCircuitBreaker circuitBreaker = getHysterixCircuitBreaker();
+        final boolean groupCircuitOpen = circuitBreaker instanceof GroupHysterixCircuitBreaker
+                && ((GroupHysterixCircuitBreaker) circuitBreaker).getGroupCircuitBreaker().isOpen();
+        if (!circuitBreaker.allowRequest()) {
+            logger.debug("Revalidation not allowed - short circuit, requestCacheKey:" + requestCacheKey);
+            finish.run();
+            return;
+        }
+
+        logger.debug("Revalidating last known good cache, requestCacheKey:" + requestCacheKey);
+        try {
+            final F.Promise<T> revalidation = runIsolated(new HysterixResponseMetadata(), getExecutionTimeoutMs());
+            revalidation.onRedeem(data -> {
+                lastKnownGoodCache.put(requestCacheKey, data);
+                //closes the circuit if revalidation was its single test
+                markCircuitSuccess(groupCircuitOpen);
+                finish.run();
+            });
+            revalidation.onFailure(t -> {
+                logger.debug("Revalidation failed, requestCacheKey:" + requestCacheKey, t);
+                finish.run();
+            });
+        } catch (final RuntimeException e) {
+            logger.warn("Revalidation failed, requestCacheKey:" + requestCacheKey, e);
+            finish.run();
+        }
+    }
+
+    private HysterixLastKnownGoodCache getLastKnownGoodCache() {
+        return hysterixRequestContext.getHysterixContext().getHysterixLastKnownGoodCache();
+    }
+
+    private F.Promise<HysterixResponse<T>> fallback(final Throwable t, final ExecutionContext executionContext) throws Throwable {
+        metadata.markPhase(HysterixExecutionPhase.FALLBACK_START);
+        //first available fallback is resolved before taking the semaphore, a command without any is never rejected by it
+        final Iterator<HysterixFallback<T>> fallbacks = getFallbackChain().iterator();
+        final Optional<F.Promise<T>> fallback = nextFallback(fallbacks);
+        if (!fallback.isPresent()) {
+            throw onRecoverFailure(t);
+        }
+
+        final HysterixSemaphore fallbackSemaphore = hysterixRequestContext.getHysterixContext().getHysterixSemaphoreHolder().getFallbackSemaphore(this);
+        if (!fallbackSemaphore.tryAcquire()) {
+            throw onFallbackRejected(t);
+        }
+
+        final F.Promise<T> fallbackPromise;
+        try {
+            fallbackPromise = runFallbackChain(fallback.get(), fallbacks, executionContext);
+        } catch (final RuntimeException e) {
+            fallbackSemaphore.release();
+            throw e;
+        }
+
+        return fallbackPromise.transform(data -> {
+            metadata.markPhase(HysterixExecutionPhase.FALLBACK_END);
+            fallbackSemaphore.release();
+            return onRecoverSuccess(data);
+        }, fallbackError -> {
+            metadata.markPhase(HysterixExecutionPhase.FALLBACK_END);
+            fallbackSemaphore.release();
+            return onRecoverFailure(t);
+        }, executionContext);
+    }
+
+    //falls through to the next available fallback as long as they fail
+    private F.Promise<T> runFallbackChain(final F.Promise<T> fallback, final Iterator<HysterixFallback<T>> fallbacks, final ExecutionContext executionContext) {
+        return fallback.recoverWith(fallbackError -> {
+            logger.warn("Fallback failed, trying next one, command:" + getCommandKey(), fallbackError);
+            final Optional<F.Promise<T>> next = nextFallback(fallbacks);
+            if (!next.isPresent()) {
+                throw fallbackError;
+            }
+
+            return runFallbackChain(next.get(), fallbacks, executionContext);
+        }, executionContext);
+    }
+
+    private Optional<F.Promise<T>> nextFallback(final Iterator<HysterixFallback<T>> fallbacks) {
+        while (fallbacks.hasNext()) {
+            try {
+                final Optional<F.Promise<T>> fallback = fallbacks.next().get();
+                if (fallback.isPresent()) {
+                    return fallback;
+                }
+            } catch (final RuntimeException e) {
+                logger.warn("Fallback failed, trying next one, command:" + getCommandKey(), e);
+            }
+        }
+
+        return Optional.empty();
+    }
+
+    private HysterixResponse<T> onRecoverSuccess(final T data) {
         logger.debug("Successfully recovered remote call failure, command:" + getCommandKey() + ",url:" + getRemoteUrl().orElse("?"));
 
         metadata.markFallbackSuccess();
         executionComplete();
 
-        return response.map(data -> HysterixResponse.create(data, metadata));
+        return HysterixResponse.create(data, metadata);
+    }
+
+    private Throwable onFallbackRejected(final Throwable t) {
+        logger.warn("Fallback rejected - too many concurrent fallbacks, command:" + getCommandKey() + ",url:" + getRemoteUrl().orElse("?"));
+        metadata.markFallbackRejection();
+        markExceptionThrown();
+
+        executionComplete();
+        return t;
     }
 
     private Throwable onRecoverFailure(final Throwable t) {
         logger.error("Recovery from remote call failure, url:" + getRemoteUrl().orElse("?"));
         metadata.markFallbackFailure();
-        metadata.markExceptionThrown();
+        markExceptionThrown();
 
         executionComplete();
         return t;
     }
 
+    //a rejected call still ends with an exception, it is not marked as thrown since that counts towards circuit breaker error rate
+    private void markExceptionThrown() {
+        if (!metadata.isRejected()) {
+            metadata.markExceptionThrown();
+        }
+    }
+
     private boolean isRequestCachingEnabled() {
         final HysterixSettings hysterixSettings = hysterixRequestContext.getHysterixContext().getHysterixSettings();
 
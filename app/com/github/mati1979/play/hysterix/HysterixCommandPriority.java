@@ -0,0 +1,15 @@
+package com.github.mati1979.play.hysterix;
+
+/**
+ * Priority of a command used by load shedding, when the JVM is saturated commands with lower priority
+ * are rejected to their fallback first.
+ *
+ * Load (in-flight count or event loop lag relative to configured limits) at which commands of given priority start
+ * to be shed is configured per priority, see HysterixSettings.getLoadSheddingLoadFactor, e.g. 1.0 means as soon as
+ * any limit is reached.
+ */
+public enum HysterixCommandPriority {
+
+    CRITICAL, DEFAULT, SHEDDABLE
+
+}
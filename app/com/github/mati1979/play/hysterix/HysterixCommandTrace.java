@@ -0,0 +1,88 @@
+package com.github.mati1979.play.hysterix;
+
+import com.google.common.collect.ImmutableList;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compact, immutable summary of an executed command, it does not keep any reference to the command itself
+ * so it can be retained by request log without holding metadata, context or request closures.
+ */
+public final class HysterixCommandTrace {
+
+    private final String commandId;
+    private final String commandGroupKey;
+    private final String commandKey;
+    private final List<HysterixEventType> executionEvents;
+    private final long executionTimeMs;
+    private final String remoteUrl;
+    private final long completionTime;
+
+    private HysterixCommandTrace(final String commandId,
+                                 final String commandGroupKey,
+                                 final String commandKey,
+                                 final List<HysterixEventType> executionEvents,
+                                 final long executionTimeMs,
+                                 final String remoteUrl,
+                                 final long completionTime) {
+        this.commandId = commandId;
+        this.commandGroupKey = commandGroupKey;
+        this.commandKey = commandKey;
+        this.executionEvents = executionEvents;
+        this.executionTimeMs = executionTimeMs;
+        this.remoteUrl = remoteUrl;
+        this.completionTime = completionTime;
+    }
+
+    public static HysterixCommandTrace from(final HysterixCommand<?> command) {
+        final HysterixResponseMetadata metadata = command.getMetadata();
+
+        return new HysterixCommandTrace(command.getCommandId(),
+                command.getCommandGroupKey().orElse(""),
+                command.getCommandKey(),
+                ImmutableList.copyOf(metadata.getExecutionEvents()),
+                metadata.getExecutionTime(TimeUnit.MILLISECONDS),
+                command.getRemoteUrl().orElse(null),
+                System.currentTimeMillis());
+    }
+
+    public String getCommandId() {
+        return commandId;
+    }
+
+    public String getCommandGroupKey() {
+        return commandGroupKey;
+    }
+
+    public String getCommandKey() {
+        return commandKey;
+    }
+
+    public List<HysterixEventType> getExecutionEvents() {
+        return executionEvents;
+    }
+
+    public long getExecutionTime(final TimeUnit timeUnit) {
+        return timeUnit.convert(executionTimeMs, TimeUnit.MILLISECONDS);
+    }
+
+    public boolean isResponseFromCache() {
+        return executionEvents.contains(HysterixEventType.RESPONSE_FROM_CACHE);
+    }
+
+    public Optional<String> getRemoteUrl() {
+        return Optional.ofNullable(remoteUrl);
+    }
+
+    public long getCompletionTime() {
+        return completionTime;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s.%s - %d ms - %s - %s", commandGroupKey, commandKey, executionTimeMs, executionEvents, getRemoteUrl().orElse("?"));
+    }
+
+}
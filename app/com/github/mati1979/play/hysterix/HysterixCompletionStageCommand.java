@@ -0,0 +1,23 @@
+package com.github.mati1979.play.hysterix;
+
+import play.libs.F;
+
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Command for clients based on CompletionStage rather than play's F.Promise, e.g. java 8 http clients.
+ */
+public abstract class HysterixCompletionStageCommand<T> extends HysterixCommand<T> {
+
+    protected HysterixCompletionStageCommand(final HysterixRequestContext hysterixRequestContext) {
+        super(hysterixRequestContext);
+    }
+
+    protected abstract CompletionStage<T> runStage();
+
+    @Override
+    protected final F.Promise<T> run() {
+        return HysterixExecution.toPromise(runStage());
+    }
+
+}
@@ -1,11 +1,22 @@
 package com.github.mati1979.play.hysterix;
 
+import com.github.mati1979.play.hysterix.admission.HysterixAdmissionController;
 import com.github.mati1979.play.hysterix.circuit.HysterixCircuitBreakerHolder;
+import com.github.mati1979.play.hysterix.circuit.HysterixCircuitBreakerPeers;
+import com.github.mati1979.play.hysterix.event.HysterixEventSampler;
+import com.github.mati1979.play.hysterix.gossip.HysterixGossip;
+import com.github.mati1979.play.hysterix.isolation.HysterixBlockingExecutor;
+import com.github.mati1979.play.hysterix.isolation.HysterixRateLimiterHolder;
+import com.github.mati1979.play.hysterix.isolation.HysterixSemaphoreHolder;
+import com.github.mati1979.play.hysterix.isolation.HysterixThreadPoolHolder;
+import com.github.mati1979.play.hysterix.registry.HysterixCommandRegistry;
 import com.github.mati1979.play.hysterix.stats.HysterixGlobalStatisticsHolder;
 import com.google.common.eventbus.EventBus;
 import com.google.common.eventbus.SubscriberExceptionContext;
 import com.google.common.eventbus.SubscriberExceptionHandler;
 
+import java.net.SocketException;
+
 /**
  * Created by mszczap on 08.06.14.
  */
@@ -15,6 +26,14 @@ public class HysterixContext {
 
     private final HysterixGlobalStatisticsHolder hysterixGlobalStatisticsHolder;
     private final HysterixCircuitBreakerHolder hysterixCircuitBreakerHolder;
+    private final HysterixAdmissionController hysterixAdmissionController;
+    private final HysterixSemaphoreHolder hysterixSemaphoreHolder;
+    private final HysterixLastKnownGoodCache hysterixLastKnownGoodCache;
+    private final HysterixBlockingExecutor hysterixBlockingExecutor;
+    private final HysterixThreadPoolHolder hysterixThreadPoolHolder;
+    private final HysterixEventSampler hysterixEventSampler;
+    private final HysterixInFlightCalls hysterixInFlightCalls;
+    private final HysterixRateLimiterHolder hysterixRateLimiterHolder;
     private final HysterixSettings hysterixSettings;
     private final EventBus eventBus;
 
@@ -23,8 +42,34 @@ public class HysterixContext {
                            final HysterixSettings hysterixSettings,
                            final EventBus eventBus
                            ) {
+        this(hysterixCircuitBreakerHolder, hysterixGlobalStatisticsHolder, new HysterixAdmissionController(hysterixSettings),
+                new HysterixSemaphoreHolder(hysterixSettings), new HysterixLastKnownGoodCache(hysterixSettings),
+                new HysterixBlockingExecutor(hysterixSettings), new HysterixThreadPoolHolder(hysterixSettings), new HysterixEventSampler(hysterixSettings), new HysterixInFlightCalls(), new HysterixRateLimiterHolder(hysterixSettings), hysterixSettings, eventBus);
+    }
+
+    public HysterixContext(final HysterixCircuitBreakerHolder hysterixCircuitBreakerHolder,
+                           final HysterixGlobalStatisticsHolder hysterixGlobalStatisticsHolder,
+                           final HysterixAdmissionController hysterixAdmissionController,
+                           final HysterixSemaphoreHolder hysterixSemaphoreHolder,
+                           final HysterixLastKnownGoodCache hysterixLastKnownGoodCache,
+                           final HysterixBlockingExecutor hysterixBlockingExecutor,
+                           final HysterixThreadPoolHolder hysterixThreadPoolHolder,
+                           final HysterixEventSampler hysterixEventSampler,
+                           final HysterixInFlightCalls hysterixInFlightCalls,
+                           final HysterixRateLimiterHolder hysterixRateLimiterHolder,
+                           final HysterixSettings hysterixSettings,
+                           final EventBus eventBus
+                           ) {
         this.hysterixCircuitBreakerHolder = hysterixCircuitBreakerHolder;
         this.hysterixGlobalStatisticsHolder = hysterixGlobalStatisticsHolder;
+        this.hysterixAdmissionController = hysterixAdmissionController;
+        this.hysterixSemaphoreHolder = hysterixSemaphoreHolder;
+        this.hysterixLastKnownGoodCache = hysterixLastKnownGoodCache;
+        this.hysterixBlockingExecutor = hysterixBlockingExecutor;
+        this.hysterixThreadPoolHolder = hysterixThreadPoolHolder;
+        this.hysterixEventSampler = hysterixEventSampler;
+        this.hysterixInFlightCalls = hysterixInFlightCalls;
+        this.hysterixRateLimiterHolder = hysterixRateLimiterHolder;
         this.hysterixSettings = hysterixSettings;
         this.eventBus = eventBus;
     }
@@ -33,10 +78,46 @@ public class HysterixContext {
         return hysterixGlobalStatisticsHolder;
     }
 
+    public HysterixCommandRegistry getHysterixCommandRegistry() {
+        return hysterixGlobalStatisticsHolder.getHysterixCommandRegistry();
+    }
+
     public HysterixCircuitBreakerHolder getHysterixCircuitBreakerHolder() {
         return hysterixCircuitBreakerHolder;
     }
 
+    public HysterixAdmissionController getHysterixAdmissionController() {
+        return hysterixAdmissionController;
+    }
+
+    public HysterixSemaphoreHolder getHysterixSemaphoreHolder() {
+        return hysterixSemaphoreHolder;
+    }
+
+    public HysterixLastKnownGoodCache getHysterixLastKnownGoodCache() {
+        return hysterixLastKnownGoodCache;
+    }
+
+    public HysterixBlockingExecutor getHysterixBlockingExecutor() {
+        return hysterixBlockingExecutor;
+    }
+
+    public HysterixThreadPoolHolder getHysterixThreadPoolHolder() {
+        return hysterixThreadPoolHolder;
+    }
+
+    public HysterixEventSampler getHysterixEventSampler() {
+        return hysterixEventSampler;
+    }
+
+    public HysterixInFlightCalls getHysterixInFlightCalls() {
+        return hysterixInFlightCalls;
+    }
+
+    public HysterixRateLimiterHolder getHysterixRateLimiterHolder() {
+        return hysterixRateLimiterHolder;
+    }
+
     public HysterixSettings getHysterixSettings() {
         return hysterixSettings;
     }
@@ -45,6 +126,17 @@ public class HysterixContext {
         return eventBus;
     }
 
+    /**
+     * Stops background threads and persists circuit breaker state (if enabled), to be called when application stops.
+     */
+    public void shutdown() {
+        hysterixGlobalStatisticsHolder.shutdown();
+        hysterixCircuitBreakerHolder.shutdown();
+        hysterixAdmissionController.shutdown();
+        hysterixBlockingExecutor.shutdown();
+        hysterixThreadPoolHolder.shutdown();
+    }
+
     public static HysterixContext createDefault() {
         final EventBus eventBus = new EventBus(new EventBusExceptionLogger());
         final HysterixSettings hysterixSettings = new HysterixSettings();
@@ -57,11 +149,22 @@ public class HysterixContext {
     public static HysterixContext create(final HysterixSettings hysterixSettings) {
         final EventBus eventBus = new EventBus(new EventBusExceptionLogger());
         final HysterixGlobalStatisticsHolder hysterixGlobalStatisticsHolder = new HysterixGlobalStatisticsHolder(hysterixSettings, eventBus);
-        final HysterixCircuitBreakerHolder hysterixCircuitBreakerHolder = new HysterixCircuitBreakerHolder(hysterixGlobalStatisticsHolder, hysterixSettings);
+        final HysterixCircuitBreakerHolder hysterixCircuitBreakerHolder = new HysterixCircuitBreakerHolder(hysterixGlobalStatisticsHolder, hysterixSettings, createPeers(hysterixSettings));
 
         return new HysterixContext(hysterixCircuitBreakerHolder, hysterixGlobalStatisticsHolder, hysterixSettings, eventBus);
     }
 
+    private static HysterixCircuitBreakerPeers createPeers(final HysterixSettings hysterixSettings) {
+        if (!hysterixSettings.isGossipEnabled()) {
+            return HysterixCircuitBreakerPeers.NONE;
+        }
+        try {
+            return new HysterixGossip(hysterixSettings);
+        } catch (final SocketException e) {
+            throw new IllegalStateException("Unable to bind gossip socket to:" + hysterixSettings.getGossipBindAddress(), e);
+        }
+    }
+
     private final static class EventBusExceptionLogger implements SubscriberExceptionHandler {
 
         @Override
@@ -2,6 +2,6 @@ package com.github.mati1979.play.hysterix;
 
 public enum HysterixEventType {
 
-    SUCCESS, FAILURE, TIMEOUT, FALLBACK_SUCCESS, FALLBACK_FAILURE, RESPONSE_FROM_CACHE, SHORT_CIRCUITED, EXCEPTION_THROWN
+    SUCCESS, SLOW_CALL, FAILURE, TIMEOUT, FALLBACK_SUCCESS, FALLBACK_FAILURE, FALLBACK_REJECTION, RESPONSE_FROM_CACHE, RESPONSE_STALE, RESPONSE_COALESCED, SHORT_CIRCUITED, DEADLINE_EXCEEDED, EXCEPTION_THROWN, LOAD_SHED, RATE_LIMITED, SEMAPHORE_REJECTED, THREAD_POOL_REJECTED
 
 }
@@ -0,0 +1,108 @@
+package com.github.mati1979.play.hysterix;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import play.libs.F;
+import scala.concurrent.ExecutionContext;
+import scala.concurrent.ExecutionContext$;
+import scala.concurrent.ExecutionContextExecutor;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Bridges between play's F.Promise and java's CompletionStage and allows to control on which executor callbacks run.
+ */
+public final class HysterixExecution {
+
+    private static final ExecutionContextExecutor SAME_THREAD = ExecutionContext$.MODULE$.fromExecutor(Runnable::run);
+
+    private final static ScheduledExecutorService TIMEOUT_SCHEDULER = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+            .setDaemon(true)
+            .setNameFormat("hysterix-timeout-%d")
+            .build());
+
+    private HysterixExecution() {
+    }
+
+    /**
+     * Runs callbacks on the thread which completes a promise, suitable only for cheap, non blocking continuations.
+     */
+    public static Executor sameThread() {
+        return SAME_THREAD;
+    }
+
+    public static ExecutionContext sameThreadContext() {
+        return SAME_THREAD;
+    }
+
+    public static ExecutionContext toExecutionContext(final Executor executor) {
+        if (executor instanceof ExecutionContext) {
+            return (ExecutionContext) executor;
+        }
+
+        return ExecutionContext$.MODULE$.fromExecutor(executor);
+    }
+
+    public static <T> CompletionStage<T> toStage(final F.Promise<T> promise, final ExecutionContext executionContext) {
+        final CompletableFuture<T> future = new CompletableFuture<>();
+        promise.onRedeem(future::complete, executionContext);
+        promise.onFailure(future::completeExceptionally, executionContext);
+
+        return future;
+    }
+
+    /**
+     * Fails with TimeoutException if promise is not completed within timeoutMs, underlying call is not cancelled.
+     * Non positive timeoutMs returns the promise as is.
+     */
+    public static <T> F.Promise<T> withTimeout(final F.Promise<T> promise, final long timeoutMs) {
+        if (timeoutMs <= 0) {
+            return promise;
+        }
+
+        final F.RedeemablePromise<T> result = F.RedeemablePromise.empty();
+        final AtomicBoolean completed = new AtomicBoolean();
+        final ScheduledFuture<?> timeout = TIMEOUT_SCHEDULER.schedule(() -> {
+            if (completed.compareAndSet(false, true)) {
+                result.failure(new TimeoutException("Call timed out after " + timeoutMs + " ms"));
+            }
+        }, timeoutMs, TimeUnit.MILLISECONDS);
+
+        promise.onRedeem(data -> {
+            if (completed.compareAndSet(false, true)) {
+                timeout.cancel(false);
+                result.success(data);
+            }
+        }, SAME_THREAD);
+        promise.onFailure(t -> {
+            if (completed.compareAndSet(false, true)) {
+                timeout.cancel(false);
+                result.failure(t);
+            }
+        }, SAME_THREAD);
+
+        return result;
+    }
+
+    public static <T> F.Promise<T> toPromise(final CompletionStage<T> stage) {
+        final F.RedeemablePromise<T> promise = F.RedeemablePromise.empty();
+        stage.whenComplete((data, t) -> {
+            if (t == null) {
+                promise.success(data);
+            } else {
+                promise.failure(t instanceof CompletionException && t.getCause() != null ? t.getCause() : t);
+            }
+        });
+
+        return promise;
+    }
+
+}
@@ -0,0 +1,10 @@
+package com.github.mati1979.play.hysterix;
+
+/**
+ * Points in a command execution for which HysterixResponseMetadata records a System.nanoTime() timestamp.
+ */
+public enum HysterixExecutionPhase {
+
+    QUEUED, BREAKER_CHECK, CACHE, RUN_START, RUN_END, FALLBACK_START, FALLBACK_END, COMPLETED
+
+}
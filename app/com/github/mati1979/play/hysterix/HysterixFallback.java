@@ -0,0 +1,38 @@
+package com.github.mati1979.play.hysterix;
+
+import play.libs.F;
+
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * A lazily invoked element of a fallback chain, see HysterixCommand.getFallbackChain().
+ *
+ * An empty result means that this fallback is not available (e.g. nothing in a cache) and the next one in the chain
+ * should be tried, same happens when returned promise fails.
+ */
+@FunctionalInterface
+public interface HysterixFallback<T> {
+
+    Optional<F.Promise<T>> get();
+
+    static <T> HysterixFallback<T> value(final T value) {
+        return () -> Optional.of(F.Promise.pure(value));
+    }
+
+    static <T> HysterixFallback<T> promise(final Supplier<F.Promise<T>> promiseSupplier) {
+        return () -> Optional.of(promiseSupplier.get());
+    }
+
+    static <T> HysterixFallback<T> cached(final Supplier<Optional<T>> cachedValueSupplier) {
+        return () -> cachedValueSupplier.get().map(F.Promise::pure);
+    }
+
+    /**
+     * Fallback to another command, which is created only if needed and is protected by its own circuit breaker and fallback.
+     */
+    static <T> HysterixFallback<T> command(final Supplier<? extends HysterixCommand<T>> commandSupplier) {
+        return () -> Optional.of(commandSupplier.get().execute().map(response -> response.getResponse()));
+    }
+
+}
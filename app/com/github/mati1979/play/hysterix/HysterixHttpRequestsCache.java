@@ -1,8 +1,8 @@
 package com.github.mati1979.play.hysterix;
 
+import com.github.mati1979.play.hysterix.jfr.HysterixFlightRecorder;
 import play.libs.F;
 
-import java.util.Optional;
 import java.util.concurrent.atomic.AtomicReference;
 
 /**
@@ -14,7 +14,8 @@ public class HysterixHttpRequestsCache<T> {
 
     private final String requestCacheKey;
 
-    private AtomicReference<Optional<F.Promise<T>>> promise = new AtomicReference<>(Optional.empty());
+    //null until the first command claims the key, that command's remote call is then shared by all following ones
+    private final AtomicReference<F.Promise<T>> promise = new AtomicReference<>();
 
     public HysterixHttpRequestsCache(final String requestCacheKey) {
         this.requestCacheKey = requestCacheKey;
@@ -24,25 +25,49 @@ public class HysterixHttpRequestsCache<T> {
         return requestCacheKey;
     }
 
+    public boolean isClaimed() {
+        return promise.get() != null;
+    }
+
     //we can assume that commands coming here are already properly grouped commands
     public F.Promise<CacheResp<T>> execute(final HysterixCommand<T> command) {
         if (shouldNotCache(command)) {
-            return command.callRemote().map(data -> new CacheResp(data, false));
+            return command.callRemote().map(data -> new CacheResp(data, false), HysterixExecution.sameThreadContext());
+        }
+
+        final F.Promise<T> cached = promise.get();
+        if (cached != null) {
+            return cacheHit(command, cached);
         }
 
-        if (promise.get().isPresent()) {
-            logger.debug("Returning cached value for command:" + command.getCommandKey() + ",id:" + command.getCommandId());
-            return promise.get().get().map(data -> new CacheResp(data, true));
+        //claim the key before calling remote, two commands racing on an empty cache must not both call remote
+        final F.RedeemablePromise<T> claimed = F.RedeemablePromise.empty();
+        if (!promise.compareAndSet(null, claimed)) {
+            return cacheHit(command, promise.get());
         }
 
-        return realGet(command);
+        return realGet(command, claimed);
     }
 
-    private F.Promise<CacheResp<T>> realGet(final HysterixCommand<T> command) {
-        final F.Promise<T> tPromise = command.callRemote();
-        this.promise.set(Optional.of(tPromise));
+    private F.Promise<CacheResp<T>> cacheHit(final HysterixCommand<T> command, final F.Promise<T> cached) {
+        HysterixFlightRecorder.requestCacheLookup(command, requestCacheKey, true);
+        logger.debug("Returning cached value for command:" + command.getCommandKey() + ",id:" + command.getCommandId());
+
+        return cached.map(data -> new CacheResp(data, true), HysterixExecution.sameThreadContext());
+    }
+
+    private F.Promise<CacheResp<T>> realGet(final HysterixCommand<T> command, final F.RedeemablePromise<T> claimed) {
+        HysterixFlightRecorder.requestCacheLookup(command, requestCacheKey, false);
+        final F.Promise<T> tPromise;
+        try {
+            tPromise = command.callRemote();
+        } catch (final RuntimeException e) {
+            claimed.failure(e);
+            throw e;
+        }
+        claimed.completeWith(tPromise, HysterixExecution.sameThreadContext());
 
-        return tPromise.map(data -> new CacheResp<>(data, false));
+        return tPromise.map(data -> new CacheResp<>(data, false), HysterixExecution.sameThreadContext());
     }
 
     private boolean shouldNotCache(final HysterixCommand<T> command) {
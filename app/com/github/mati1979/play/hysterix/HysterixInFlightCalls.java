@@ -0,0 +1,81 @@
+package com.github.mati1979.play.hysterix;
+
+import play.libs.F;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Context wide single-flight of remote calls, while a call for a request cache key is in flight, other web requests
+ * executing the same key attach to its promise instead of calling out. Nothing is retained once a call completes.
+ */
+public class HysterixInFlightCalls {
+
+    private static final play.Logger.ALogger logger = play.Logger.of(HysterixInFlightCalls.class);
+
+    private final Map<String, F.Promise<?>> inFlight = new ConcurrentHashMap<>();
+
+    private final AtomicLong coalescedCount = new AtomicLong();
+
+    /**
+     * @return call for the request cache key already in flight, if any, joining it counts as coalesced
+     */
+    public <T> Optional<F.Promise<T>> join(final String requestCacheKey) {
+        final F.Promise<T> existing = (F.Promise<T>) inFlight.get(requestCacheKey);
+        if (existing == null) {
+            return Optional.empty();
+        }
+
+        logger.debug("Attaching to in-flight call, requestCacheKey:" + requestCacheKey);
+        coalescedCount.incrementAndGet();
+
+        return Optional.of(existing);
+    }
+
+    /**
+     * @param onCoalesced invoked when caller attached to an already in-flight call instead of invoking remoteCall
+     */
+    public <T> F.Promise<T> execute(final String requestCacheKey, final Supplier<F.Promise<T>> remoteCall, final Runnable onCoalesced) {
+        final F.RedeemablePromise<T> promise = F.RedeemablePromise.empty();
+        final F.Promise<T> existing = (F.Promise<T>) inFlight.putIfAbsent(requestCacheKey, promise);
+        if (existing != null) {
+            logger.debug("Attaching to in-flight call, requestCacheKey:" + requestCacheKey);
+            coalescedCount.incrementAndGet();
+            onCoalesced.run();
+            return existing;
+        }
+
+        final F.Promise<T> remotePromise;
+        try {
+            remotePromise = remoteCall.get();
+        } catch (final RuntimeException e) {
+            inFlight.remove(requestCacheKey, promise);
+            promise.failure(e);
+            throw e;
+        }
+
+        //removed before completing, so that late callers start a new call rather than attach to a finished one
+        remotePromise.onRedeem(data -> {
+            inFlight.remove(requestCacheKey, promise);
+            promise.success(data);
+        }, HysterixExecution.sameThreadContext());
+        remotePromise.onFailure(t -> {
+            inFlight.remove(requestCacheKey, promise);
+            promise.failure(t);
+        }, HysterixExecution.sameThreadContext());
+
+        return promise;
+    }
+
+    public int getInFlightCount() {
+        return inFlight.size();
+    }
+
+    public long getCoalescedCount() {
+        return coalescedCount.get();
+    }
+
+}
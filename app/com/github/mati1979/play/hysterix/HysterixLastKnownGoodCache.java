@@ -0,0 +1,72 @@
+package com.github.mati1979.play.hysterix;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Context wide store of last successful responses keyed by request cache key, used to serve stale data when a remote
+ * call fails or circuit is open. Bounded both by number of entries and by max staleness.
+ */
+public class HysterixLastKnownGoodCache {
+
+    private final Cache<String, Entry<?>> cache;
+
+    private final Set<String> revalidating = ConcurrentHashMap.newKeySet();
+
+    public HysterixLastKnownGoodCache(final HysterixSettings hysterixSettings) {
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(hysterixSettings.getLastKnownGoodCacheMaxEntries())
+                .expireAfterWrite(hysterixSettings.getLastKnownGoodCacheMaxStalenessMs(), TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    public <T> void put(final String requestCacheKey, final T value) {
+        if (value == null) {
+            return;
+        }
+
+        cache.put(requestCacheKey, new Entry<>(value));
+    }
+
+    public <T> Optional<Entry<T>> get(final String requestCacheKey) {
+        return Optional.ofNullable((Entry<T>) cache.getIfPresent(requestCacheKey));
+    }
+
+    //only one background revalidation per key at a time
+    public boolean tryStartRevalidation(final String requestCacheKey) {
+        return revalidating.add(requestCacheKey);
+    }
+
+    public void finishRevalidation(final String requestCacheKey) {
+        revalidating.remove(requestCacheKey);
+    }
+
+    public long size() {
+        return cache.size();
+    }
+
+    public static class Entry<T> {
+
+        private final T value;
+        private final long createdAt = System.currentTimeMillis();
+
+        private Entry(final T value) {
+            this.value = value;
+        }
+
+        public T getValue() {
+            return value;
+        }
+
+        public long getAge(final TimeUnit timeUnit) {
+            return timeUnit.convert(System.currentTimeMillis() - createdAt, TimeUnit.MILLISECONDS);
+        }
+
+    }
+
+}
@@ -13,4 +13,11 @@ public class HysterixRequestCacheHolder {
         return caches.computeIfAbsent(requestCacheKey, k -> new HysterixHttpRequestsCache<T>(k));
     }
 
+    //whether a command of this request already claimed the key, following ones are served from its call
+    public boolean isClaimed(final String requestCacheKey) {
+        final HysterixHttpRequestsCache cache = caches.get(requestCacheKey);
+
+        return cache != null && cache.isClaimed();
+    }
+
 }
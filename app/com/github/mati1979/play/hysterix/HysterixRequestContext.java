@@ -1,5 +1,11 @@
 package com.github.mati1979.play.hysterix;
 
+import play.libs.F;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
 public class HysterixRequestContext {
 
     private static final play.Logger.ALogger logger = play.Logger.of(HysterixRequestContext.class);
@@ -8,12 +14,23 @@ public class HysterixRequestContext {
     private final HysterixRequestCacheHolder hysterixRequestCacheHolder;
     private final HysterixRequestLog hysterixRequestLog;
 
+    /* System.nanoTime() by which the whole web request should complete */
+    private final Optional<Long> deadlineNanos;
+
     public HysterixRequestContext(final HysterixContext hysterixContext,
                                   final HysterixRequestCacheHolder hysterixRequestCacheHolder,
                                   final HysterixRequestLog hysterixRequestLog) {
+        this(hysterixContext, hysterixRequestCacheHolder, hysterixRequestLog, Optional.empty());
+    }
+
+    public HysterixRequestContext(final HysterixContext hysterixContext,
+                                  final HysterixRequestCacheHolder hysterixRequestCacheHolder,
+                                  final HysterixRequestLog hysterixRequestLog,
+                                  final Optional<Long> deadlineNanos) {
         this.hysterixContext = hysterixContext;
         this.hysterixRequestCacheHolder = hysterixRequestCacheHolder;
         this.hysterixRequestLog = hysterixRequestLog;
+        this.deadlineNanos = deadlineNanos;
     }
 
     public HysterixRequestCacheHolder getHysterixRequestCacheHolder() {
@@ -28,13 +45,53 @@ public class HysterixRequestContext {
         return hysterixContext;
     }
 
+    /**
+     * Time left until request deadline, never negative, empty if request has no deadline.
+     */
+    public Optional<Long> getRemainingBudgetMs() {
+        return deadlineNanos.map(deadline -> Math.max(0, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime())));
+    }
+
+    public boolean isDeadlineExceeded() {
+        return deadlineNanos.isPresent() && System.nanoTime() - deadlineNanos.get() >= 0;
+    }
+
+    /**
+     * Executes commands with at most maxParallelism of them in flight, a failure of one command does not affect others.
+     * Returned items are in the same order as commands.
+     */
+    public <T> F.Promise<List<HysterixBulkItem<T>>> executeAll(final List<? extends HysterixCommand<T>> commands, final int maxParallelism) {
+        return new HysterixBulkExecution<T>(commands).execute(maxParallelism, 0);
+    }
+
+    /**
+     * Same as executeAll(commands, maxParallelism) but completes once timeout elapses with whatever has completed so far,
+     * commands not started by then are not started at all.
+     */
+    public <T> F.Promise<List<HysterixBulkItem<T>>> executeAll(final List<? extends HysterixCommand<T>> commands,
+                                                             final int maxParallelism,
+                                                             final long timeout,
+                                                             final TimeUnit timeUnit) {
+        return new HysterixBulkExecution<T>(commands).execute(maxParallelism, Math.max(1, timeUnit.toMillis(timeout)));
+    }
+
+    //request deadline is taken from settings (requestDeadlineMs), 0 means no deadline
     public static HysterixRequestContext create(final HysterixContext hysterixContext) {
+        return create(hysterixContext, hysterixContext.getHysterixSettings().getRequestDeadlineMs(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Creates a context for a web request which should complete within timeout from now, commands derive their
+     * timeouts from the remaining budget and commands started after the deadline go straight to their fallback.
+     */
+    public static HysterixRequestContext create(final HysterixContext hysterixContext, final long timeout, final TimeUnit timeUnit) {
         logger.debug("Creating new HysterixContext.");
 
         final HysterixRequestLog hysterixRequestLog = new HysterixRequestLog(hysterixContext);
         final HysterixRequestCacheHolder requestCacheHolder = new HysterixRequestCacheHolder();
+        final Optional<Long> deadlineNanos = timeout > 0 ? Optional.of(System.nanoTime() + timeUnit.toNanos(timeout)) : Optional.empty();
 
-        return new HysterixRequestContext(hysterixContext, requestCacheHolder, hysterixRequestLog);
+        return new HysterixRequestContext(hysterixContext, requestCacheHolder, hysterixRequestLog, deadlineNanos);
     }
 
 }
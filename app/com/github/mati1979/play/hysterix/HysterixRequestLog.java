@@ -1,5 +1,6 @@
 package com.github.mati1979.play.hysterix;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -7,10 +8,15 @@ import play.libs.F;
 
 import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.Executors;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 public class HysterixRequestLog {
 
@@ -22,6 +28,16 @@ public class HysterixRequestLog {
 
     private LinkedBlockingQueue<F.RedeemablePromise<Collection<HysterixCommand<?>>>> promises = new LinkedBlockingQueue<>();
 
+    //used in streaming mode only, compact records instead of whole commands
+    private LinkedBlockingQueue<HysterixCommandTrace> executedTraces = new LinkedBlockingQueue<>(MAX_STORAGE);
+
+    private LinkedBlockingQueue<F.RedeemablePromise<Collection<HysterixCommandTrace>>> tracePromises = new LinkedBlockingQueue<>();
+
+    private final List<Consumer<HysterixCommandTrace>> subscribers = new CopyOnWriteArrayList<>();
+
+    //guards adding a trace and replaying traces to a new subscriber, so that no trace is delivered twice or lost
+    private final ReentrantLock tracesLock = new ReentrantLock();
+
     private final HysterixContext hysterixContext;
 
     private final static ScheduledExecutorService SCHEDULED_EXECUTOR_SERVICE = Executors.newSingleThreadScheduledExecutor();
@@ -39,15 +55,42 @@ public class HysterixRequestLog {
     }
 
     public void addExecutedCommand(final HysterixCommand<?> command) {
+        if (isStreaming()) {
+            addExecutedTrace(HysterixCommandTrace.from(command));
+            return;
+        }
+
         if (!executedCommands.offer(command)) {
             logger.debug("commands.size:" + executedCommands.size());
             logger.warn("RequestLog ignoring command after reaching limit of " + MAX_STORAGE);
         }
     }
 
+    private void addExecutedTrace(final HysterixCommandTrace trace) {
+        tracesLock.lock();
+        try {
+            if (!executedTraces.offer(trace)) {
+                logger.debug("traces.size:" + executedTraces.size());
+                logger.warn("RequestLog ignoring command trace after reaching limit of " + MAX_STORAGE);
+            }
+            subscribers.stream().forEach(subscriber -> publish(subscriber, trace));
+        } finally {
+            tracesLock.unlock();
+        }
+    }
+
+    private void publish(final Consumer<HysterixCommandTrace> subscriber, final HysterixCommandTrace trace) {
+        try {
+            subscriber.accept(trace);
+        } catch (final Exception e) {
+            logger.error("RequestLog subscriber failed, trace:" + trace, e);
+        }
+    }
+
     private void notifyPromises() {
-        logger.debug("Notifying interested parties, partiesCount:" + promises.size());
+        logger.debug("Notifying interested parties, partiesCount:" + (promises.size() + tracePromises.size()));
         promises.stream().forEach(p -> p.success(getExecutedCommands()));
+        tracePromises.stream().forEach(p -> p.success(getExecutedTraces()));
     }
 
     public void markWebRequestEnd() {
@@ -59,11 +102,26 @@ public class HysterixRequestLog {
         return Collections.unmodifiableCollection(executedCommands);
     }
 
+    /**
+     * Returns compact records of the commands executed so far, works in both streaming and non streaming mode.
+     */
+    public Collection<HysterixCommandTrace> getExecutedTraces() {
+        if (isStreaming()) {
+            return ImmutableList.copyOf(executedTraces);
+        }
+
+        return executedCommands.stream().map(HysterixCommandTrace::from).collect(Collectors.toList());
+    }
+
     public F.Promise<Collection<HysterixCommand<?>>> executedCommands() {
         if (!hysterixContext.getHysterixSettings().isLogRequestStatistics()) {
             logger.warn("Cannot inspect log - isLogRequestStatistics is disabled!");
             return F.Promise.pure(Lists.newArrayList());
         }
+        if (isStreaming()) {
+            logger.warn("Cannot inspect commands - isLogRequestStatisticsStreaming is enabled, use executedTraces instead!");
+            return F.Promise.pure(Lists.newArrayList());
+        }
 
         final F.RedeemablePromise<Collection<HysterixCommand<?>>> promise = F.RedeemablePromise.empty();
 
@@ -72,4 +130,42 @@ public class HysterixRequestLog {
         return promise;
     }
 
+    public F.Promise<Collection<HysterixCommandTrace>> executedTraces() {
+        if (!hysterixContext.getHysterixSettings().isLogRequestStatistics()) {
+            logger.warn("Cannot inspect log - isLogRequestStatistics is disabled!");
+            return F.Promise.pure(Lists.newArrayList());
+        }
+
+        final F.RedeemablePromise<Collection<HysterixCommandTrace>> promise = F.RedeemablePromise.empty();
+
+        tracePromises.add(promise);
+
+        return promise;
+    }
+
+    /**
+     * Subscribes to command traces as they complete, traces recorded before subscription are replayed first.
+     * Only available in streaming mode, subscribers are invoked on the thread completing the command so they should be cheap.
+     */
+    public void subscribe(final Consumer<HysterixCommandTrace> subscriber) {
+        if (!isStreaming()) {
+            logger.warn("Cannot subscribe to log - isLogRequestStatisticsStreaming is disabled!");
+            return;
+        }
+
+        tracesLock.lock();
+        try {
+            executedTraces.stream().forEach(trace -> publish(subscriber, trace));
+            subscribers.add(subscriber);
+        } finally {
+            tracesLock.unlock();
+        }
+    }
+
+    private boolean isStreaming() {
+        final HysterixSettings hysterixSettings = hysterixContext.getHysterixSettings();
+
+        return hysterixSettings.isLogRequestStatistics() && hysterixSettings.isLogRequestStatisticsStreaming();
+    }
+
 }
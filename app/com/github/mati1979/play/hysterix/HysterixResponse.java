@@ -31,10 +31,26 @@ public class HysterixResponse<T> {
         return metadata.isSuccessfulExecution();
     }
 
+    public boolean isSlowCall() {
+        return metadata.isSlowCall();
+    }
+
     public boolean isShortCircuited() {
         return metadata.isShortCircuited();
     }
 
+    public boolean isDeadlineExceeded() {
+        return metadata.isDeadlineExceeded();
+    }
+
+    public boolean isLoadShed() {
+        return metadata.isLoadShed();
+    }
+
+    public boolean isRateLimited() {
+        return metadata.isRateLimited();
+    }
+
     public boolean isError() {
         return metadata.isError();
     }
@@ -44,7 +60,7 @@ public class HysterixResponse<T> {
     }
 
     public boolean isResponseFromFallback() {
-        return metadata.isResponseFromCache();
+        return metadata.isFallbackSuccess();
     }
 
     public boolean isResponseTimeout() {
@@ -55,6 +71,14 @@ public class HysterixResponse<T> {
         return metadata.isResponseFromCache();
     }
 
+    public boolean isResponseStale() {
+        return metadata.isResponseStale();
+    }
+
+    public boolean isResponseCoalesced() {
+        return metadata.isResponseCoalesced();
+    }
+
     public long getExecutionTime(final TimeUnit timeUnit) {
         return metadata.getExecutionTime(timeUnit);
     }
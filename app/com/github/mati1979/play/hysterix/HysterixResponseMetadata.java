@@ -4,17 +4,30 @@ import com.google.common.base.Stopwatch;
 import com.google.common.collect.Lists;
 
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
 
 /**
  * Created by mszczap on 27.05.14.
  */
 public class HysterixResponseMetadata {
 
-    protected List<HysterixEventType> executionEvents = Lists.newArrayList();
+    //written from promise callbacks which may run on different threads, read by statistics and stream subscribers
+    protected List<HysterixEventType> executionEvents = new CopyOnWriteArrayList<>();
 
     private Stopwatch stopwatch = Stopwatch.createUnstarted();
 
+    private volatile long stalenessMs = 0;
+
+    private volatile long remainingBudgetMs = -1; //-1 - request has no deadline
+
+    private volatile boolean shortCircuitedByGroup = false;
+
+    /* System.nanoTime() per HysterixExecutionPhase ordinal, 0 if phase was not reached */
+    private final AtomicLongArray phaseNanos = new AtomicLongArray(HysterixExecutionPhase.values().length);
+
     public HysterixResponseMetadata() {
     }
 
@@ -22,14 +35,46 @@ public class HysterixResponseMetadata {
         return Lists.newArrayList(executionEvents);
     }
 
+    //indexed access without a copy, events are only ever appended so an index below a read count stays valid
+    public int getExecutionEventCount() {
+        return executionEvents.size();
+    }
+
+    public HysterixEventType getExecutionEvent(final int index) {
+        return executionEvents.get(index);
+    }
+
     protected Stopwatch getStopwatch() {
         return stopwatch;
     }
 
+    protected void markPhase(final HysterixExecutionPhase phase) {
+        phaseNanos.set(phase.ordinal(), System.nanoTime());
+    }
+
+    //raw System.nanoTime() of a phase, only meaningful relative to other phases, 0 if phase was not reached
+    public long getPhaseTimestampNanos(final HysterixExecutionPhase phase) {
+        return phaseNanos.get(phase.ordinal());
+    }
+
+    public Optional<Long> getPhaseDuration(final HysterixExecutionPhase from, final HysterixExecutionPhase to, final TimeUnit timeUnit) {
+        final long fromNanos = phaseNanos.get(from.ordinal());
+        final long toNanos = phaseNanos.get(to.ordinal());
+        if (fromNanos == 0 || toNanos == 0) {
+            return Optional.empty();
+        }
+
+        return Optional.of(timeUnit.convert(toNanos - fromNanos, TimeUnit.NANOSECONDS));
+    }
+
     protected void markSuccess() {
         executionEvents.add(HysterixEventType.SUCCESS);
     }
 
+    protected void markSlowCall() {
+        executionEvents.add(HysterixEventType.SLOW_CALL);
+    }
+
     protected void markTimeout() {
         executionEvents.add(HysterixEventType.TIMEOUT);
     }
@@ -42,6 +87,10 @@ public class HysterixResponseMetadata {
         executionEvents.add(HysterixEventType.FALLBACK_FAILURE);
     }
 
+    protected void markFallbackRejection() {
+        executionEvents.add(HysterixEventType.FALLBACK_REJECTION);
+    }
+
     protected void markFailure() {
         executionEvents.add(HysterixEventType.FAILURE);
     }
@@ -50,14 +99,53 @@ public class HysterixResponseMetadata {
         executionEvents.add(HysterixEventType.RESPONSE_FROM_CACHE);
     }
 
+    protected void markResponseStale(final long stalenessMs) {
+        this.stalenessMs = stalenessMs;
+        executionEvents.add(HysterixEventType.RESPONSE_STALE);
+    }
+
+    protected void markResponseCoalesced() {
+        executionEvents.add(HysterixEventType.RESPONSE_COALESCED);
+    }
+
     protected void markShortCircuited() {
         executionEvents.add(HysterixEventType.SHORT_CIRCUITED);
     }
 
+    //short-circuited by an open group circuit while command's own circuit was closed
+    protected void markShortCircuitedByGroup() {
+        shortCircuitedByGroup = true;
+        executionEvents.add(HysterixEventType.SHORT_CIRCUITED);
+    }
+
     protected void markExceptionThrown() {
         executionEvents.add(HysterixEventType.EXCEPTION_THROWN);
     }
 
+    protected void markSemaphoreRejected() {
+        executionEvents.add(HysterixEventType.SEMAPHORE_REJECTED);
+    }
+
+    protected void markThreadPoolRejected() {
+        executionEvents.add(HysterixEventType.THREAD_POOL_REJECTED);
+    }
+
+    protected void markDeadlineExceeded() {
+        executionEvents.add(HysterixEventType.DEADLINE_EXCEEDED);
+    }
+
+    protected void setRemainingBudgetMs(final long remainingBudgetMs) {
+        this.remainingBudgetMs = remainingBudgetMs;
+    }
+
+    protected void markLoadShed() {
+        executionEvents.add(HysterixEventType.LOAD_SHED);
+    }
+
+    protected void markRateLimited() {
+        executionEvents.add(HysterixEventType.RATE_LIMITED);
+    }
+
     public boolean isExceptionThrown() {
         return executionEvents.contains(HysterixEventType.EXCEPTION_THROWN);
     }
@@ -66,6 +154,44 @@ public class HysterixResponseMetadata {
         return executionEvents.contains(HysterixEventType.SHORT_CIRCUITED);
     }
 
+    public boolean isShortCircuitedByGroup() {
+        return shortCircuitedByGroup;
+    }
+
+    public boolean isSemaphoreRejected() {
+        return executionEvents.contains(HysterixEventType.SEMAPHORE_REJECTED);
+    }
+
+    public boolean isThreadPoolRejected() {
+        return executionEvents.contains(HysterixEventType.THREAD_POOL_REJECTED);
+    }
+
+    public boolean isDeadlineExceeded() {
+        return executionEvents.contains(HysterixEventType.DEADLINE_EXCEEDED);
+    }
+
+    //remaining request deadline budget when command started, empty if request has no deadline
+    public Optional<Long> getRemainingBudget(final TimeUnit timeUnit) {
+        if (remainingBudgetMs < 0) {
+            return Optional.empty();
+        }
+
+        return Optional.of(timeUnit.convert(remainingBudgetMs, TimeUnit.MILLISECONDS));
+    }
+
+    public boolean isLoadShed() {
+        return executionEvents.contains(HysterixEventType.LOAD_SHED);
+    }
+
+    public boolean isRateLimited() {
+        return executionEvents.contains(HysterixEventType.RATE_LIMITED);
+    }
+
+    //call was turned away by this node (load shed, rate limit, request deadline, bulkhead full), the dependency itself did not fail
+    public boolean isRejected() {
+        return isLoadShed() || isRateLimited() || isDeadlineExceeded() || isSemaphoreRejected() || isThreadPoolRejected();
+    }
+
     public boolean isExecutionComplete() {
         return executionEvents.size() > 0;
     }
@@ -74,6 +200,10 @@ public class HysterixResponseMetadata {
         return executionEvents.contains(HysterixEventType.SUCCESS);
     }
 
+    public boolean isSlowCall() {
+        return executionEvents.contains(HysterixEventType.SLOW_CALL);
+    }
+
     public boolean isFailedExecution() {
         return executionEvents.contains(HysterixEventType.FAILURE);
     }
@@ -82,7 +212,12 @@ public class HysterixResponseMetadata {
         return executionEvents.contains(HysterixEventType.FAILURE)
                 || executionEvents.contains(HysterixEventType.EXCEPTION_THROWN)
                 || executionEvents.contains(HysterixEventType.TIMEOUT)
-                || executionEvents.contains(HysterixEventType.SHORT_CIRCUITED);
+                || executionEvents.contains(HysterixEventType.SHORT_CIRCUITED)
+                || executionEvents.contains(HysterixEventType.LOAD_SHED)
+                || executionEvents.contains(HysterixEventType.RATE_LIMITED)
+                || executionEvents.contains(HysterixEventType.DEADLINE_EXCEEDED)
+                || executionEvents.contains(HysterixEventType.SEMAPHORE_REJECTED)
+                || executionEvents.contains(HysterixEventType.THREAD_POOL_REJECTED);
     }
 
     public boolean isFallbackSuccess() {
@@ -90,7 +225,11 @@ public class HysterixResponseMetadata {
     }
 
     public boolean isFallbackFailed() {
-        return executionEvents.contains(HysterixEventType.FALLBACK_SUCCESS);
+        return executionEvents.contains(HysterixEventType.FALLBACK_FAILURE);
+    }
+
+    public boolean isFallbackRejected() {
+        return executionEvents.contains(HysterixEventType.FALLBACK_REJECTION);
     }
 
     public boolean isResponseTimeout() {
@@ -101,6 +240,20 @@ public class HysterixResponseMetadata {
         return executionEvents.contains(HysterixEventType.RESPONSE_FROM_CACHE);
     }
 
+    public boolean isResponseStale() {
+        return executionEvents.contains(HysterixEventType.RESPONSE_STALE);
+    }
+
+    //response was shared with an identical command already in flight in another web request
+    public boolean isResponseCoalesced() {
+        return executionEvents.contains(HysterixEventType.RESPONSE_COALESCED);
+    }
+
+    //how old the stale response (from last known good cache) is
+    public long getStaleness(final TimeUnit timeUnit) {
+        return timeUnit.convert(stalenessMs, TimeUnit.MILLISECONDS);
+    }
+
     public long getExecutionTime(final TimeUnit timeUnit) {
         return stopwatch.elapsed(timeUnit);
     }
@@ -1,5 +1,12 @@
 package com.github.mati1979.play.hysterix;
 
+import com.google.common.collect.ImmutableList;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
 public class HysterixSettings {
 
     private boolean fallbackEnabled = true;
@@ -7,6 +14,7 @@ public class HysterixSettings {
 
     private boolean logRequestStatistics = true;
     private int logRequestStatisticsTimeoutMs = 5000; //5 seconds
+    private boolean logRequestStatisticsStreaming = false;
 
     private boolean logGlobalStatistics = true;
 
@@ -18,6 +26,65 @@ public class HysterixSettings {
     private int circuitBreakerErrorThresholdPercentage = 50;
     private int circuitBreakerRequestVolumeThreshold = 20;
 
+    private boolean loadSheddingEnabled = false;
+    private int loadSheddingMaxConcurrentRequests = 500;
+    private long loadSheddingMaxEventLoopLagMs = 200;
+    private long loadSheddingLagProbeIntervalMs = 100;
+    //load (relative to the limits above) at which commands of a priority start to be shed
+    private double loadSheddingCriticalLoadFactor = Double.POSITIVE_INFINITY; //never shed
+    private double loadSheddingDefaultLoadFactor = 1.5D;
+    private double loadSheddingSheddableLoadFactor = 1.0D;
+
+    private int fallbackIsolationSemaphoreMaxConcurrentRequests = 20;
+
+    private boolean lastKnownGoodCacheEnabled = false;
+    private int lastKnownGoodCacheMaxEntries = 1000;
+    private long lastKnownGoodCacheMaxStalenessMs = 30000; //30 seconds
+    private boolean lastKnownGoodCacheRevalidate = false;
+
+    private boolean blockingExecutionVirtualThreadsEnabled = true;
+    private long blockingExecutionTimeoutMs = 2000;
+    private int blockingExecutionMaxConcurrentRequests = 100;
+    private int blockingExecutionPlatformPoolSize = 200;
+
+    private int threadPoolCoreSize = 10;
+    private int threadPoolMaxQueueSize = 10;
+    private Map<String, int[]> threadPools = new HashMap<>(); //threadPoolKey -> [coreSize, maxQueueSize]
+    private Map<String, double[]> rateLimits = new HashMap<>(); //commandGroupKey.commandKey or commandGroupKey -> [permitsPerSecond, burst]
+
+    private boolean groupCircuitBreakerEnabled = false;
+
+    private boolean statisticsBufferEnabled = false;
+    private long statisticsBufferFlushIntervalMs = 5;
+
+    private long circuitBreakerSlowCallDurationThresholdMs = 0; //0 - slow call detection disabled
+    private int circuitBreakerSlowCallRateThresholdPercentage = 50;
+
+    private boolean eventSamplingEnabled = false;
+    private int eventSamplingTargetEventsPerSecond = 10;
+
+    private int streamClientMaxQueueSize = 100;
+    private long streamClientMaxLagMs = 5000;
+    private int streamDeliveryPoolSize = 2;
+
+    private boolean globalCoalescingEnabled = false;
+
+    private long requestDeadlineMs = 0; //0 - requests have no deadline
+
+    private String circuitBreakerStateFile = null; //null - circuit breaker state is not persisted
+    private long circuitBreakerStateSaveIntervalMs = 10000;
+    private long circuitBreakerStateMaxAgeMs = 60000;
+
+    private boolean gossipEnabled = false;
+    private String gossipBindAddress = "127.0.0.1:7979";
+    private List<String> gossipPeers = ImmutableList.of(); //host:port of other nodes
+    private int gossipQuorum = 0; //0 - majority of peers
+    private long gossipIntervalMs = 1000;
+    private long gossipMaxAgeMs = 5000;
+
+    private boolean statisticsHistoryEnabled = false;
+    private int statisticsHistorySeconds = 600;
+
     public boolean isLogGlobalStatistics() {
         return logGlobalStatistics;
     }
@@ -62,6 +129,185 @@ public class HysterixSettings {
         return logRequestStatisticsTimeoutMs;
     }
 
+    public boolean isLogRequestStatisticsStreaming() {
+        return logRequestStatisticsStreaming;
+    }
+
+    public boolean isLoadSheddingEnabled() {
+        return loadSheddingEnabled;
+    }
+
+    public int getLoadSheddingMaxConcurrentRequests() {
+        return loadSheddingMaxConcurrentRequests;
+    }
+
+    public long getLoadSheddingMaxEventLoopLagMs() {
+        return loadSheddingMaxEventLoopLagMs;
+    }
+
+    public long getLoadSheddingLagProbeIntervalMs() {
+        return loadSheddingLagProbeIntervalMs;
+    }
+
+    public double getLoadSheddingLoadFactor(final HysterixCommandPriority priority) {
+        switch (priority) {
+            case CRITICAL:
+                return loadSheddingCriticalLoadFactor;
+            case SHEDDABLE:
+                return loadSheddingSheddableLoadFactor;
+            default:
+                return loadSheddingDefaultLoadFactor;
+        }
+    }
+
+    public int getFallbackIsolationSemaphoreMaxConcurrentRequests() {
+        return fallbackIsolationSemaphoreMaxConcurrentRequests;
+    }
+
+    public boolean isLastKnownGoodCacheEnabled() {
+        return lastKnownGoodCacheEnabled;
+    }
+
+    public int getLastKnownGoodCacheMaxEntries() {
+        return lastKnownGoodCacheMaxEntries;
+    }
+
+    public long getLastKnownGoodCacheMaxStalenessMs() {
+        return lastKnownGoodCacheMaxStalenessMs;
+    }
+
+    public boolean isLastKnownGoodCacheRevalidate() {
+        return lastKnownGoodCacheRevalidate;
+    }
+
+    public boolean isBlockingExecutionVirtualThreadsEnabled() {
+        return blockingExecutionVirtualThreadsEnabled;
+    }
+
+    public long getBlockingExecutionTimeoutMs() {
+        return blockingExecutionTimeoutMs;
+    }
+
+    public int getBlockingExecutionMaxConcurrentRequests() {
+        return blockingExecutionMaxConcurrentRequests;
+    }
+
+    public int getBlockingExecutionPlatformPoolSize() {
+        return blockingExecutionPlatformPoolSize;
+    }
+
+    public int getThreadPoolCoreSize() {
+        return threadPoolCoreSize;
+    }
+
+    public int getThreadPoolMaxQueueSize() {
+        return threadPoolMaxQueueSize;
+    }
+
+    public int getThreadPoolCoreSize(final String threadPoolKey) {
+        return threadPools.containsKey(threadPoolKey) ? threadPools.get(threadPoolKey)[0] : threadPoolCoreSize;
+    }
+
+    public int getThreadPoolMaxQueueSize(final String threadPoolKey) {
+        return threadPools.containsKey(threadPoolKey) ? threadPools.get(threadPoolKey)[1] : threadPoolMaxQueueSize;
+    }
+
+    public Map<String, double[]> getRateLimits() {
+        return rateLimits;
+    }
+
+    public boolean isGroupCircuitBreakerEnabled() {
+        return groupCircuitBreakerEnabled;
+    }
+
+    public boolean isStatisticsBufferEnabled() {
+        return statisticsBufferEnabled;
+    }
+
+    public long getStatisticsBufferFlushIntervalMs() {
+        return statisticsBufferFlushIntervalMs;
+    }
+
+    public long getCircuitBreakerSlowCallDurationThresholdMs() {
+        return circuitBreakerSlowCallDurationThresholdMs;
+    }
+
+    public int getCircuitBreakerSlowCallRateThresholdPercentage() {
+        return circuitBreakerSlowCallRateThresholdPercentage;
+    }
+
+    public boolean isEventSamplingEnabled() {
+        return eventSamplingEnabled;
+    }
+
+    public int getEventSamplingTargetEventsPerSecond() {
+        return eventSamplingTargetEventsPerSecond;
+    }
+
+    public int getStreamClientMaxQueueSize() {
+        return streamClientMaxQueueSize;
+    }
+
+    public long getStreamClientMaxLagMs() {
+        return streamClientMaxLagMs;
+    }
+
+    public int getStreamDeliveryPoolSize() {
+        return streamDeliveryPoolSize;
+    }
+
+    public boolean isGlobalCoalescingEnabled() {
+        return globalCoalescingEnabled;
+    }
+
+    public long getRequestDeadlineMs() {
+        return requestDeadlineMs;
+    }
+
+    public Optional<String> getCircuitBreakerStateFile() {
+        return Optional.ofNullable(circuitBreakerStateFile);
+    }
+
+    public long getCircuitBreakerStateSaveIntervalMs() {
+        return circuitBreakerStateSaveIntervalMs;
+    }
+
+    public long getCircuitBreakerStateMaxAgeMs() {
+        return circuitBreakerStateMaxAgeMs;
+    }
+
+    public boolean isGossipEnabled() {
+        return gossipEnabled;
+    }
+
+    public String getGossipBindAddress() {
+        return gossipBindAddress;
+    }
+
+    public List<String> getGossipPeers() {
+        return gossipPeers;
+    }
+
+    public int getGossipQuorum() {
+        return gossipQuorum;
+    }
+
+    public long getGossipIntervalMs() {
+        return gossipIntervalMs;
+    }
+
+    public long getGossipMaxAgeMs() {
+        return gossipMaxAgeMs;
+    }
+
+    public boolean isStatisticsHistoryEnabled() {
+        return statisticsHistoryEnabled;
+    }
+
+    public int getStatisticsHistorySeconds() {
+        return statisticsHistorySeconds;
+    }
+
     public static class Builder {
 
         private HysterixSettings hysterixSettings;
@@ -95,6 +341,11 @@ public class HysterixSettings {
             return this;
         }
 
+        public Builder withLogRequestStatisticsStreaming(final boolean logRequestStatisticsStreaming) {
+            hysterixSettings.logRequestStatisticsStreaming = logRequestStatisticsStreaming;
+            return this;
+        }
+
         public Builder withRollingTimeWindowIntervalInMs(final int rollingTimeWindowIntervalInMs) {
             hysterixSettings.rollingTimeWindowIntervalInMs = rollingTimeWindowIntervalInMs;
             return this;
@@ -125,6 +376,222 @@ public class HysterixSettings {
             return this;
         }
 
+        public Builder withLoadSheddingEnabled(final boolean loadSheddingEnabled) {
+            hysterixSettings.loadSheddingEnabled = loadSheddingEnabled;
+            return this;
+        }
+
+        public Builder withLoadSheddingMaxConcurrentRequests(final int loadSheddingMaxConcurrentRequests) {
+            hysterixSettings.loadSheddingMaxConcurrentRequests = loadSheddingMaxConcurrentRequests;
+            return this;
+        }
+
+        public Builder withLoadSheddingMaxEventLoopLagMs(final long loadSheddingMaxEventLoopLagMs) {
+            hysterixSettings.loadSheddingMaxEventLoopLagMs = loadSheddingMaxEventLoopLagMs;
+            return this;
+        }
+
+        public Builder withLoadSheddingLagProbeIntervalMs(final long loadSheddingLagProbeIntervalMs) {
+            hysterixSettings.loadSheddingLagProbeIntervalMs = loadSheddingLagProbeIntervalMs;
+            return this;
+        }
+
+        public Builder withLoadSheddingCriticalLoadFactor(final double loadSheddingCriticalLoadFactor) {
+            hysterixSettings.loadSheddingCriticalLoadFactor = loadSheddingCriticalLoadFactor;
+            return this;
+        }
+
+        public Builder withLoadSheddingDefaultLoadFactor(final double loadSheddingDefaultLoadFactor) {
+            hysterixSettings.loadSheddingDefaultLoadFactor = loadSheddingDefaultLoadFactor;
+            return this;
+        }
+
+        public Builder withLoadSheddingSheddableLoadFactor(final double loadSheddingSheddableLoadFactor) {
+            hysterixSettings.loadSheddingSheddableLoadFactor = loadSheddingSheddableLoadFactor;
+            return this;
+        }
+
+        public Builder withFallbackIsolationSemaphoreMaxConcurrentRequests(final int fallbackIsolationSemaphoreMaxConcurrentRequests) {
+            hysterixSettings.fallbackIsolationSemaphoreMaxConcurrentRequests = fallbackIsolationSemaphoreMaxConcurrentRequests;
+            return this;
+        }
+
+        public Builder withLastKnownGoodCacheEnabled(final boolean lastKnownGoodCacheEnabled) {
+            hysterixSettings.lastKnownGoodCacheEnabled = lastKnownGoodCacheEnabled;
+            return this;
+        }
+
+        public Builder withLastKnownGoodCacheMaxEntries(final int lastKnownGoodCacheMaxEntries) {
+            hysterixSettings.lastKnownGoodCacheMaxEntries = lastKnownGoodCacheMaxEntries;
+            return this;
+        }
+
+        public Builder withLastKnownGoodCacheMaxStalenessMs(final long lastKnownGoodCacheMaxStalenessMs) {
+            hysterixSettings.lastKnownGoodCacheMaxStalenessMs = lastKnownGoodCacheMaxStalenessMs;
+            return this;
+        }
+
+        public Builder withLastKnownGoodCacheRevalidate(final boolean lastKnownGoodCacheRevalidate) {
+            hysterixSettings.lastKnownGoodCacheRevalidate = lastKnownGoodCacheRevalidate;
+            return this;
+        }
+
+        public Builder withBlockingExecutionVirtualThreadsEnabled(final boolean blockingExecutionVirtualThreadsEnabled) {
+            hysterixSettings.blockingExecutionVirtualThreadsEnabled = blockingExecutionVirtualThreadsEnabled;
+            return this;
+        }
+
+        public Builder withBlockingExecutionTimeoutMs(final long blockingExecutionTimeoutMs) {
+            hysterixSettings.blockingExecutionTimeoutMs = blockingExecutionTimeoutMs;
+            return this;
+        }
+
+        public Builder withBlockingExecutionMaxConcurrentRequests(final int blockingExecutionMaxConcurrentRequests) {
+            hysterixSettings.blockingExecutionMaxConcurrentRequests = blockingExecutionMaxConcurrentRequests;
+            return this;
+        }
+
+        public Builder withBlockingExecutionPlatformPoolSize(final int blockingExecutionPlatformPoolSize) {
+            hysterixSettings.blockingExecutionPlatformPoolSize = blockingExecutionPlatformPoolSize;
+            return this;
+        }
+
+        public Builder withThreadPoolCoreSize(final int threadPoolCoreSize) {
+            hysterixSettings.threadPoolCoreSize = threadPoolCoreSize;
+            return this;
+        }
+
+        public Builder withThreadPoolMaxQueueSize(final int threadPoolMaxQueueSize) {
+            hysterixSettings.threadPoolMaxQueueSize = threadPoolMaxQueueSize;
+            return this;
+        }
+
+        //overrides default core size and queue size for a given thread pool
+        public Builder withThreadPool(final String threadPoolKey, final int coreSize, final int maxQueueSize) {
+            hysterixSettings.threadPools.put(threadPoolKey, new int[] {coreSize, maxQueueSize});
+            return this;
+        }
+
+        public Builder withRateLimit(final String key, final double permitsPerSecond, final int burst) {
+            hysterixSettings.rateLimits.put(key, new double[] {permitsPerSecond, burst});
+            return this;
+        }
+
+        public Builder withGroupCircuitBreakerEnabled(final boolean groupCircuitBreakerEnabled) {
+            hysterixSettings.groupCircuitBreakerEnabled = groupCircuitBreakerEnabled;
+            return this;
+        }
+
+        public Builder withStatisticsBufferEnabled(final boolean statisticsBufferEnabled) {
+            hysterixSettings.statisticsBufferEnabled = statisticsBufferEnabled;
+            return this;
+        }
+
+        public Builder withStatisticsBufferFlushIntervalMs(final long statisticsBufferFlushIntervalMs) {
+            hysterixSettings.statisticsBufferFlushIntervalMs = statisticsBufferFlushIntervalMs;
+            return this;
+        }
+
+        public Builder withCircuitBreakerSlowCallDurationThresholdMs(final long circuitBreakerSlowCallDurationThresholdMs) {
+            hysterixSettings.circuitBreakerSlowCallDurationThresholdMs = circuitBreakerSlowCallDurationThresholdMs;
+            return this;
+        }
+
+        public Builder withCircuitBreakerSlowCallRateThresholdPercentage(final int circuitBreakerSlowCallRateThresholdPercentage) {
+            hysterixSettings.circuitBreakerSlowCallRateThresholdPercentage = circuitBreakerSlowCallRateThresholdPercentage;
+            return this;
+        }
+
+        public Builder withEventSamplingEnabled(final boolean eventSamplingEnabled) {
+            hysterixSettings.eventSamplingEnabled = eventSamplingEnabled;
+            return this;
+        }
+
+        public Builder withEventSamplingTargetEventsPerSecond(final int eventSamplingTargetEventsPerSecond) {
+            hysterixSettings.eventSamplingTargetEventsPerSecond = eventSamplingTargetEventsPerSecond;
+            return this;
+        }
+
+        public Builder withStreamClientMaxQueueSize(final int streamClientMaxQueueSize) {
+            hysterixSettings.streamClientMaxQueueSize = streamClientMaxQueueSize;
+            return this;
+        }
+
+        public Builder withStreamClientMaxLagMs(final long streamClientMaxLagMs) {
+            hysterixSettings.streamClientMaxLagMs = streamClientMaxLagMs;
+            return this;
+        }
+
+        public Builder withStreamDeliveryPoolSize(final int streamDeliveryPoolSize) {
+            hysterixSettings.streamDeliveryPoolSize = streamDeliveryPoolSize;
+            return this;
+        }
+
+        public Builder withGlobalCoalescingEnabled(final boolean globalCoalescingEnabled) {
+            hysterixSettings.globalCoalescingEnabled = globalCoalescingEnabled;
+            return this;
+        }
+
+        public Builder withRequestDeadlineMs(final long requestDeadlineMs) {
+            hysterixSettings.requestDeadlineMs = requestDeadlineMs;
+            return this;
+        }
+
+        public Builder withCircuitBreakerStateFile(final String circuitBreakerStateFile) {
+            hysterixSettings.circuitBreakerStateFile = circuitBreakerStateFile;
+            return this;
+        }
+
+        public Builder withCircuitBreakerStateSaveIntervalMs(final long circuitBreakerStateSaveIntervalMs) {
+            hysterixSettings.circuitBreakerStateSaveIntervalMs = circuitBreakerStateSaveIntervalMs;
+            return this;
+        }
+
+        public Builder withCircuitBreakerStateMaxAgeMs(final long circuitBreakerStateMaxAgeMs) {
+            hysterixSettings.circuitBreakerStateMaxAgeMs = circuitBreakerStateMaxAgeMs;
+            return this;
+        }
+
+        public Builder withGossipEnabled(final boolean gossipEnabled) {
+            hysterixSettings.gossipEnabled = gossipEnabled;
+            return this;
+        }
+
+        public Builder withGossipBindAddress(final String gossipBindAddress) {
+            hysterixSettings.gossipBindAddress = gossipBindAddress;
+            return this;
+        }
+
+        public Builder withGossipPeers(final String... gossipPeers) {
+            hysterixSettings.gossipPeers = ImmutableList.copyOf(gossipPeers);
+            return this;
+        }
+
+        public Builder withGossipQuorum(final int gossipQuorum) {
+            hysterixSettings.gossipQuorum = gossipQuorum;
+            return this;
+        }
+
+        public Builder withGossipIntervalMs(final long gossipIntervalMs) {
+            hysterixSettings.gossipIntervalMs = gossipIntervalMs;
+            return this;
+        }
+
+        public Builder withGossipMaxAgeMs(final long gossipMaxAgeMs) {
+            hysterixSettings.gossipMaxAgeMs = gossipMaxAgeMs;
+            return this;
+        }
+
+        public Builder withStatisticsHistoryEnabled(final boolean statisticsHistoryEnabled) {
+            hysterixSettings.statisticsHistoryEnabled = statisticsHistoryEnabled;
+            return this;
+        }
+
+        public Builder withStatisticsHistorySeconds(final int statisticsHistorySeconds) {
+            hysterixSettings.statisticsHistorySeconds = statisticsHistorySeconds;
+            return this;
+        }
+
         public static Builder newBuilder() {
             return new Builder();
         }
@@ -0,0 +1,125 @@
+package com.github.mati1979.play.hysterix.admission;
+
+import com.github.mati1979.play.hysterix.HysterixCommandPriority;
+import com.github.mati1979.play.hysterix.HysterixSettings;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import play.libs.HttpExecution;
+
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Context wide admission controller, it watches number of in-flight commands and lag of play's default execution context
+ * and rejects commands to their fallback based on their priority (SHEDDABLE first, then DEFAULT, CRITICAL never).
+ */
+public class HysterixAdmissionController {
+
+    private static final play.Logger.ALogger logger = play.Logger.of(HysterixAdmissionController.class);
+
+    private final HysterixSettings hysterixSettings;
+
+    private final AtomicInteger inFlightCount = new AtomicInteger();
+
+    private final AtomicLongArray shedCounts = new AtomicLongArray(HysterixCommandPriority.values().length);
+
+    private volatile long eventLoopLagMs = 0;
+
+    /* nano time when currently pending lag probe was submitted or 0 if no probe is pending */
+    private final AtomicLong pendingProbeSince = new AtomicLong();
+
+    private final Optional<ScheduledExecutorService> scheduledExecutorService;
+
+    public HysterixAdmissionController(final HysterixSettings hysterixSettings) {
+        this.hysterixSettings = hysterixSettings;
+        if (hysterixSettings.isLoadSheddingEnabled()) {
+            this.scheduledExecutorService = Optional.of(Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+                    .setDaemon(true)
+                    .setNameFormat("hysterix-event-loop-lag-probe-%d")
+                    .build()));
+            final long intervalMs = hysterixSettings.getLoadSheddingLagProbeIntervalMs();
+            scheduledExecutorService.get().scheduleAtFixedRate(() -> probeEventLoopLag(), intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+        } else {
+            this.scheduledExecutorService = Optional.empty();
+        }
+    }
+
+    /**
+     * @return true if command may execute, in such a case caller must invoke release once command completes
+     */
+    public boolean tryAdmit(final HysterixCommandPriority priority) {
+        if (hysterixSettings.isLoadSheddingEnabled() && getLoad() >= hysterixSettings.getLoadSheddingLoadFactor(priority)) {
+            shedCounts.incrementAndGet(priority.ordinal());
+            return false;
+        }
+
+        inFlightCount.incrementAndGet();
+
+        return true;
+    }
+
+    public void release() {
+        inFlightCount.decrementAndGet();
+    }
+
+    /**
+     * Load relative to configured limits, 1.0 means that either in-flight count or event loop lag reached its limit.
+     */
+    public double getLoad() {
+        final double inFlightLoad = (double) inFlightCount.get() / hysterixSettings.getLoadSheddingMaxConcurrentRequests();
+        final double lagLoad = (double) eventLoopLagMs / hysterixSettings.getLoadSheddingMaxEventLoopLagMs();
+
+        return Math.max(inFlightLoad, lagLoad);
+    }
+
+    public int getInFlightCount() {
+        return inFlightCount.get();
+    }
+
+    public long getEventLoopLagMs() {
+        return eventLoopLagMs;
+    }
+
+    public long getShedCount(final HysterixCommandPriority priority) {
+        return shedCounts.get(priority.ordinal());
+    }
+
+    public void shutdown() {
+        scheduledExecutorService.ifPresent(ScheduledExecutorService::shutdownNow);
+    }
+
+    private void probeEventLoopLag() {
+        final long now = System.nanoTime();
+        final long pendingSince = pendingProbeSince.get();
+        if (pendingSince != 0) {
+            //previous probe has not been executed yet, event loop is at least this much behind
+            eventLoopLagMs = Math.max(eventLoopLagMs, TimeUnit.NANOSECONDS.toMillis(now - pendingSince));
+            return;
+        }
+
+        pendingProbeSince.set(now);
+        try {
+            HttpExecution.defaultContext().execute(() -> {
+                eventLoopLagMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - now);
+                pendingProbeSince.set(0);
+            });
+        } catch (final Exception e) {
+            logger.warn("Unable to probe event loop lag", e);
+            pendingProbeSince.set(0);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "HysterixAdmissionController{" +
+                "inFlightCount=" + inFlightCount +
+                ", eventLoopLagMs=" + eventLoopLagMs +
+                ", shedCounts=" + shedCounts +
+                '}';
+    }
+
+}
@@ -1,10 +1,13 @@
 package com.github.mati1979.play.hysterix.circuit;
 
 import com.github.mati1979.play.hysterix.HysterixSettings;
+import com.github.mati1979.play.hysterix.jfr.HysterixFlightRecorder;
 import com.github.mati1979.play.hysterix.stats.RollingHysterixGlobalStatistics;
 
+import java.util.Optional;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
 
 /**
  * Created by mati on 17/06/2014.
@@ -23,14 +26,34 @@ public class DefaultHysterixCircuitBreaker implements HysterixCircuitBreaker {
     /* when the circuit was marked open or was last allowed to try a 'singleTest' */
     private AtomicLong circuitOpenedOrLastTestedTime = new AtomicLong();
 
+    /* which condition opened the circuit last time and how many times each condition opened it */
+    private volatile HysterixCircuitOpenReason lastOpenReason;
+    private final AtomicLongArray openCounts = new AtomicLongArray(HysterixCircuitOpenReason.values().length);
+
+    private final AtomicLong transitionCount = new AtomicLong();
+
+    /* when the circuit was last closed, peer quorum older than that does not open it again */
+    private volatile long circuitClosedTime = 0;
+
+    private final HysterixCircuitBreakerPeers peers;
+
     public DefaultHysterixCircuitBreaker(final String commandGroupKey,
                                          final String commandKey,
                                          final RollingHysterixGlobalStatistics rollingHysterixGlobalStatistics,
                                          final HysterixSettings hystrixSettings) {
+        this(commandGroupKey, commandKey, rollingHysterixGlobalStatistics, hystrixSettings, HysterixCircuitBreakerPeers.NONE);
+    }
+
+    public DefaultHysterixCircuitBreaker(final String commandGroupKey,
+                                         final String commandKey,
+                                         final RollingHysterixGlobalStatistics rollingHysterixGlobalStatistics,
+                                         final HysterixSettings hystrixSettings,
+                                         final HysterixCircuitBreakerPeers peers) {
         this.commandGroupKey = commandGroupKey;
         this.commandKey = commandKey;
         this.rollingHysterixGlobalStatistics = rollingHysterixGlobalStatistics;
         this.hysterixSettings = hystrixSettings;
+        this.peers = peers;
     }
 
     public String getCommandGroupKey() {
@@ -45,7 +68,12 @@ public class DefaultHysterixCircuitBreaker implements HysterixCircuitBreaker {
     public void markSuccess() {
         if (circuitOpen.get()) {
             rollingHysterixGlobalStatistics.clearStats();
-            circuitOpen.set(false);
+            if (circuitOpen.compareAndSet(true, false)) {
+                circuitClosedTime = System.currentTimeMillis();
+                transitionCount.incrementAndGet();
+                peers.onTransition(this);
+                HysterixFlightRecorder.circuitBreakerTransition(commandGroupKey, commandKey, HysterixFlightRecorder.CIRCUIT_CLOSED, 0, null);
+            }
         }
     }
 
@@ -72,6 +100,8 @@ public class DefaultHysterixCircuitBreaker implements HysterixCircuitBreaker {
             if (circuitOpenedOrLastTestedTime.compareAndSet(timeCircuitOpenedOrWasLastTested, System.currentTimeMillis())) {
                 // if this returns true that means we set the time so we'll return true to allow the singleTest
                 // if it returned false it means another thread raced us and allowed the singleTest before we did
+                HysterixFlightRecorder.circuitBreakerTransition(commandGroupKey, commandKey, HysterixFlightRecorder.CIRCUIT_HALF_OPEN,
+                        rollingHysterixGlobalStatistics.getErrorPercentage(), null);
                 return true;
             }
         }
@@ -92,22 +122,38 @@ public class DefaultHysterixCircuitBreaker implements HysterixCircuitBreaker {
             return true;
         }
 
+        // peers saw the dependency failing after we last closed, no need to wait for our own request volume
+        if (peers.getQuorumOpenSince(commandGroupKey, commandKey) > circuitClosedTime) {
+            return trip(HysterixCircuitOpenReason.PEER_QUORUM);
+        }
+
         // check if we are past the statisticalWindowVolumeThreshold
         if (isPassedStatisticalRequestVolumeThreshold()) {
             // we are not past the minimum volume threshold for the statisticalWindow so we'll return false immediately and not calculate anything
             return false;
         }
 
-        if (checkErrorRate()) {
+        final boolean errorRateExceeded = !checkErrorRate();
+        if (!errorRateExceeded && !isSlowCallRateExceeded()) {
             return false;
         }
 
-        // our failure rate is too high, trip the circuit
+        // our failure rate or slow call rate is too high, trip the circuit
+        return trip(errorRateExceeded ? HysterixCircuitOpenReason.ERROR_RATE : HysterixCircuitOpenReason.SLOW_CALL_RATE);
+    }
+
+    private boolean trip(final HysterixCircuitOpenReason reason) {
         if (circuitOpen.compareAndSet(false, true)) {
             // if the previousValue was false then we want to set the currentTime
             // How could previousValue be true? If another thread was going through this code at the same time a race-condition could have
             // caused another thread to set it to true already even though we were in the process of doing the same
             circuitOpenedOrLastTestedTime.set(System.currentTimeMillis());
+            lastOpenReason = reason;
+            openCounts.incrementAndGet(reason.ordinal());
+            transitionCount.incrementAndGet();
+            peers.onTransition(this);
+            HysterixFlightRecorder.circuitBreakerTransition(commandGroupKey, commandKey, HysterixFlightRecorder.CIRCUIT_OPEN,
+                    rollingHysterixGlobalStatistics.getErrorPercentage(), reason.name());
             return true;
         }
 
@@ -118,6 +164,46 @@ public class DefaultHysterixCircuitBreaker implements HysterixCircuitBreaker {
         return rollingHysterixGlobalStatistics.getErrorPercentage() < hysterixSettings.getCircuitBreakerErrorThresholdPercentage();
     }
 
+    private boolean isSlowCallRateExceeded() {
+        return rollingHysterixGlobalStatistics.getSlowCallCount() > 0
+                && rollingHysterixGlobalStatistics.getSlowCallPercentage() >= hysterixSettings.getCircuitBreakerSlowCallRateThresholdPercentage();
+    }
+
+    @Override
+    public long getTransitionCount() {
+        return transitionCount.get();
+    }
+
+    //used to restore persisted state on startup, sleep window continues from the persisted time
+    void restoreOpen(final long openedOrLastTestedTime, final Optional<HysterixCircuitOpenReason> reason) {
+        circuitOpenedOrLastTestedTime.set(openedOrLastTestedTime);
+        reason.ifPresent(r -> lastOpenReason = r);
+        if (circuitOpen.compareAndSet(false, true)) {
+            transitionCount.incrementAndGet();
+        }
+    }
+
+    //current state without evaluating statistics
+    public boolean isCircuitOpen() {
+        return circuitOpen.get();
+    }
+
+    long getCircuitOpenedOrLastTestedTime() {
+        return circuitOpenedOrLastTestedTime.get();
+    }
+
+    public RollingHysterixGlobalStatistics getRollingHysterixGlobalStatistics() {
+        return rollingHysterixGlobalStatistics;
+    }
+
+    public Optional<HysterixCircuitOpenReason> getLastOpenReason() {
+        return Optional.ofNullable(lastOpenReason);
+    }
+
+    public long getOpenCount(final HysterixCircuitOpenReason reason) {
+        return openCounts.get(reason.ordinal());
+    }
+
     private boolean isPassedStatisticalRequestVolumeThreshold() {
         return rollingHysterixGlobalStatistics.getTotalCount() < hysterixSettings.getCircuitBreakerRequestVolumeThreshold();
     }
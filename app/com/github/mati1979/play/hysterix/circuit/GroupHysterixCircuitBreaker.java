@@ -0,0 +1,66 @@
+package com.github.mati1979.play.hysterix.circuit;
+
+/**
+ * Combines a group level breaker with a command level breaker, request is allowed only if both allow it,
+ * so an open group breaker short-circuits all commands of the group together.
+ * One instance per command, shared by all its executions, see HysterixCircuitBreakerHolder.getGroupCommandCircuitBreaker.
+ */
+public class GroupHysterixCircuitBreaker implements HysterixCircuitBreaker {
+
+    private final HysterixCircuitBreaker groupCircuitBreaker;
+    private final HysterixCircuitBreaker commandCircuitBreaker;
+
+    public GroupHysterixCircuitBreaker(final HysterixCircuitBreaker groupCircuitBreaker,
+                                       final HysterixCircuitBreaker commandCircuitBreaker) {
+        this.groupCircuitBreaker = groupCircuitBreaker;
+        this.commandCircuitBreaker = commandCircuitBreaker;
+    }
+
+    @Override
+    public boolean allowRequest() {
+        // group is checked first, command's single test is taken only for a request the group lets through,
+        // an open group would otherwise use it up on every sleep window while command's dependency is never called.
+        // With both circuits open group's test may be taken by a request command then refuses, it is retried after a sleep window
+        return groupCircuitBreaker.allowRequest() && commandCircuitBreaker.allowRequest();
+    }
+
+    //request was refused although command's own circuit is closed, such a short-circuit does not count against command statistics
+    public boolean isShortCircuitedByGroup() {
+        return groupCircuitBreaker.isOpen() && !commandCircuitBreaker.isOpen();
+    }
+
+    @Override
+    public boolean isOpen() {
+        return groupCircuitBreaker.isOpen() || commandCircuitBreaker.isOpen();
+    }
+
+    @Override
+    public boolean allowSingleTest() {
+        return groupCircuitBreaker.allowSingleTest() && commandCircuitBreaker.allowSingleTest();
+    }
+
+    //closes only command circuit, a success of any command must not close the circuit of the whole group
+    @Override
+    public void markSuccess() {
+        commandCircuitBreaker.markSuccess();
+    }
+
+    //to be invoked only by the request which took group circuit's single test
+    public void markGroupSuccess() {
+        groupCircuitBreaker.markSuccess();
+    }
+
+    @Override
+    public long getTransitionCount() {
+        return groupCircuitBreaker.getTransitionCount() + commandCircuitBreaker.getTransitionCount();
+    }
+
+    public HysterixCircuitBreaker getGroupCircuitBreaker() {
+        return groupCircuitBreaker;
+    }
+
+    public HysterixCircuitBreaker getCommandCircuitBreaker() {
+        return commandCircuitBreaker;
+    }
+
+}
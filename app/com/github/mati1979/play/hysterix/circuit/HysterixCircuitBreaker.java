@@ -15,6 +15,12 @@ public interface HysterixCircuitBreaker {
 
     void markSuccess();
 
+    //number of open and close transitions so far, allows to detect a transition without evaluating isOpen,
+    //implementations not tracking transitions report 0
+    default long getTransitionCount() {
+        return 0;
+    }
+
     class Stub implements HysterixCircuitBreaker {
 
         @Override
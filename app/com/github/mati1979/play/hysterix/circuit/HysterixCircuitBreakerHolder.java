@@ -2,45 +2,151 @@ package com.github.mati1979.play.hysterix.circuit;
 
 import com.github.mati1979.play.hysterix.HysterixCommand;
 import com.github.mati1979.play.hysterix.HysterixSettings;
+import com.github.mati1979.play.hysterix.registry.HysterixCommandArray;
+import com.github.mati1979.play.hysterix.registry.HysterixCommandRegistry;
 import com.github.mati1979.play.hysterix.stats.HysterixGlobalStatisticsHolder;
 import com.github.mati1979.play.hysterix.stats.RollingHysterixGlobalStatistics;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
+import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Created by mszczap on 01.06.14.
  */
 public class HysterixCircuitBreakerHolder {
 
-    private final Map<String, DefaultHysterixCircuitBreaker> cache = new ConcurrentHashMap();
+    public static final String GROUP_COMMAND_KEY = "*";
+
+    private final HysterixCommandArray<DefaultHysterixCircuitBreaker> cache = new HysterixCommandArray<>();
+    private final Map<String, DefaultHysterixCircuitBreaker> groupCache = new ConcurrentHashMap();
+    private final HysterixCommandArray<GroupHysterixCircuitBreaker> groupCommandCache = new HysterixCommandArray<>();
 
     private final HysterixGlobalStatisticsHolder hysterixGlobalStatisticsHolder;
     private final HysterixSettings hysterixSettings;
 
+    private final Optional<HysterixCircuitBreakerStateStore> stateStore;
+    private final Optional<ScheduledExecutorService> scheduledExecutorService;
+
+    private final HysterixCircuitBreakerPeers peers;
+
     public HysterixCircuitBreakerHolder(final HysterixGlobalStatisticsHolder hysterixGlobalStatisticsHolder, final HysterixSettings hysterixSettings) {
+        this(hysterixGlobalStatisticsHolder, hysterixSettings, HysterixCircuitBreakerPeers.NONE);
+    }
+
+    public HysterixCircuitBreakerHolder(final HysterixGlobalStatisticsHolder hysterixGlobalStatisticsHolder,
+                                        final HysterixSettings hysterixSettings,
+                                        final HysterixCircuitBreakerPeers peers) {
         this.hysterixGlobalStatisticsHolder = hysterixGlobalStatisticsHolder;
         this.hysterixSettings = hysterixSettings;
+        this.peers = peers;
+        this.stateStore = hysterixSettings.getCircuitBreakerStateFile()
+                .map(file -> new HysterixCircuitBreakerStateStore(Paths.get(file), hysterixSettings.getCircuitBreakerStateMaxAgeMs()));
+        stateStore.ifPresent(store -> store.restore(this::getCircuitBreakerOrGroup));
+        if (stateStore.isPresent()) {
+            this.scheduledExecutorService = Optional.of(Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+                    .setDaemon(true)
+                    .setNameFormat("hysterix-circuit-breaker-state-%d")
+                    .build()));
+            final long intervalMs = hysterixSettings.getCircuitBreakerStateSaveIntervalMs();
+            scheduledExecutorService.get().scheduleAtFixedRate(() -> saveState(), intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+        } else {
+            this.scheduledExecutorService = Optional.empty();
+        }
+        hysterixGlobalStatisticsHolder.getStatisticsHistory().ifPresent(history -> history.setCircuitOpen(this::isCircuitOpen));
+        peers.attach(this);
     }
 
     public DefaultHysterixCircuitBreaker getCircuitBreaker(final HysterixCommand hysterixCommand) {
-        return getCircuitBreaker((String) hysterixCommand.getCommandGroupKey().orElse(""), hysterixCommand.getCommandKey());
+        return getCircuitBreaker(hysterixCommand.getCommandIndex());
     }
 
     public DefaultHysterixCircuitBreaker getCircuitBreaker(final String commandGroupKey, final String commandKey) {
-        final String key = String.format("%s.%s", commandGroupKey, commandKey);
+        return getCircuitBreaker(hysterixGlobalStatisticsHolder.getHysterixCommandRegistry().register(commandGroupKey, commandKey));
+    }
 
-        return cache.computeIfAbsent(key, k -> {
-            final RollingHysterixGlobalStatistics hysterixCacheMetrics = hysterixGlobalStatisticsHolder.getTimeWindowedMetrics(commandGroupKey, commandKey);
+    public DefaultHysterixCircuitBreaker getCircuitBreaker(final int commandIndex) {
+        final DefaultHysterixCircuitBreaker circuitBreaker = cache.get(commandIndex);
+        if (circuitBreaker != null) {
+            return circuitBreaker;
+        }
 
-            return new DefaultHysterixCircuitBreaker(commandGroupKey, commandKey, hysterixCacheMetrics, hysterixSettings);
+        return cache.computeIfAbsent(commandIndex, i -> {
+            final HysterixCommandRegistry hysterixCommandRegistry = hysterixGlobalStatisticsHolder.getHysterixCommandRegistry();
+            final RollingHysterixGlobalStatistics hysterixCacheMetrics = hysterixGlobalStatisticsHolder.getTimeWindowedMetrics(i);
+
+            return new DefaultHysterixCircuitBreaker(hysterixCommandRegistry.getCommandGroupKey(i), hysterixCommandRegistry.getCommandKey(i), hysterixCacheMetrics, hysterixSettings, peers);
         });
     }
 
+    private boolean isCircuitOpen(final int commandIndex) {
+        final DefaultHysterixCircuitBreaker circuitBreaker = cache.get(commandIndex);
+
+        return circuitBreaker != null && circuitBreaker.isCircuitOpen();
+    }
+
+    //breaker shared by all commands of a group, evaluated on aggregated group statistics
+    public DefaultHysterixCircuitBreaker getGroupCircuitBreaker(final String commandGroupKey) {
+        return groupCache.computeIfAbsent(commandGroupKey, k -> {
+            final RollingHysterixGlobalStatistics groupMetrics = hysterixGlobalStatisticsHolder.getGroupTimeWindowedMetrics(commandGroupKey);
+
+            return new DefaultHysterixCircuitBreaker(commandGroupKey, GROUP_COMMAND_KEY, groupMetrics, hysterixSettings, peers);
+        });
+    }
+
+    //command breaker combined with breaker of command's group, commandGroupKey of the command must not be empty
+    public GroupHysterixCircuitBreaker getGroupCommandCircuitBreaker(final HysterixCommand hysterixCommand) {
+        final int commandIndex = hysterixCommand.getCommandIndex();
+        final GroupHysterixCircuitBreaker circuitBreaker = groupCommandCache.get(commandIndex);
+        if (circuitBreaker != null) {
+            return circuitBreaker;
+        }
+
+        return groupCommandCache.computeIfAbsent(commandIndex, i -> {
+            final String commandGroupKey = hysterixGlobalStatisticsHolder.getHysterixCommandRegistry().getCommandGroupKey(i);
+
+            return new GroupHysterixCircuitBreaker(getGroupCircuitBreaker(commandGroupKey), getCircuitBreaker(i));
+        });
+    }
+
+    public Collection<DefaultHysterixCircuitBreaker> getAllGroup() {
+        return Collections.unmodifiableCollection(groupCache.values());
+    }
+
     public Collection<DefaultHysterixCircuitBreaker> getAll() {
-        return Collections.unmodifiableCollection(cache.values());
+        return cache.values();
+    }
+
+    //writes state file (if circuitBreakerStateFile is set), also done periodically and on shutdown
+    public void saveState() {
+        stateStore.ifPresent(store -> {
+            final List<DefaultHysterixCircuitBreaker> circuitBreakers = new ArrayList<>(getAll());
+            circuitBreakers.addAll(getAllGroup());
+            store.save(circuitBreakers);
+        });
+    }
+
+    public void shutdown() {
+        scheduledExecutorService.ifPresent(ScheduledExecutorService::shutdownNow);
+        saveState();
+        peers.shutdown();
+    }
+
+    private DefaultHysterixCircuitBreaker getCircuitBreakerOrGroup(final String commandGroupKey, final String commandKey) {
+        if (GROUP_COMMAND_KEY.equals(commandKey)) {
+            return getGroupCircuitBreaker(commandGroupKey);
+        }
+
+        return getCircuitBreaker(commandGroupKey, commandKey);
     }
 
 }
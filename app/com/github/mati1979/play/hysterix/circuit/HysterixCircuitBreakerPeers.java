@@ -0,0 +1,42 @@
+package com.github.mati1979.play.hysterix.circuit;
+
+/**
+ * Knowledge about circuit breakers of other nodes, e.g. shared via gossip.
+ */
+public interface HysterixCircuitBreakerPeers {
+
+    public static final Stub NONE = new Stub();
+
+    /**
+     * @return time (millis) since when a quorum of peers sees given circuit as failing, 0 if there is no such quorum
+     */
+    long getQuorumOpenSince(String commandGroupKey, String commandKey);
+
+    void onTransition(DefaultHysterixCircuitBreaker circuitBreaker);
+
+    void attach(HysterixCircuitBreakerHolder hysterixCircuitBreakerHolder);
+
+    void shutdown();
+
+    class Stub implements HysterixCircuitBreakerPeers {
+
+        @Override
+        public long getQuorumOpenSince(final String commandGroupKey, final String commandKey) {
+            return 0;
+        }
+
+        @Override
+        public void onTransition(final DefaultHysterixCircuitBreaker circuitBreaker) {
+        }
+
+        @Override
+        public void attach(final HysterixCircuitBreakerHolder hysterixCircuitBreakerHolder) {
+        }
+
+        @Override
+        public void shutdown() {
+        }
+
+    }
+
+}
@@ -0,0 +1,123 @@
+package com.github.mati1979.play.hysterix.circuit;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.github.mati1979.play.hysterix.stats.RollingHysterixGlobalStatistics;
+import play.libs.Json;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.function.BiFunction;
+
+/**
+ * Saves circuit breaker state and rolling health counts to a local JSON file and restores them on startup,
+ * so that a restarted node does not have to rediscover a failing dependency on its own.
+ */
+final class HysterixCircuitBreakerStateStore {
+
+    private static final play.Logger.ALogger logger = play.Logger.of(HysterixCircuitBreakerStateStore.class);
+
+    private static final int VERSION = 1;
+
+    private final Path file;
+    private final long maxAgeMs;
+
+    HysterixCircuitBreakerStateStore(final Path file, final long maxAgeMs) {
+        this.file = file;
+        this.maxAgeMs = maxAgeMs;
+    }
+
+    void save(final Collection<DefaultHysterixCircuitBreaker> circuitBreakers) {
+        final ObjectNode root = Json.newObject();
+        root.put("version", VERSION);
+        root.put("savedAt", System.currentTimeMillis());
+        final ArrayNode breakers = root.putArray("circuitBreakers");
+        circuitBreakers.forEach(circuitBreaker -> {
+            final RollingHysterixGlobalStatistics stats = circuitBreaker.getRollingHysterixGlobalStatistics();
+            final ObjectNode breaker = breakers.addObject();
+            breaker.put("group", circuitBreaker.getCommandGroupKey());
+            breaker.put("key", circuitBreaker.getCommandKey());
+            breaker.put("open", circuitBreaker.isCircuitOpen());
+            breaker.put("openedOrLastTestedTime", circuitBreaker.getCircuitOpenedOrLastTestedTime());
+            breaker.put("openReason", circuitBreaker.getLastOpenReason().map(Enum::name).orElse(null));
+            breaker.put("success", stats.getSuccessWithoutRequestCacheCount());
+            breaker.put("failure", stats.getFailureCount());
+            breaker.put("timeout", stats.getTimeoutCount());
+            breaker.put("exceptionsThrown", stats.getExceptionsThrownCount());
+            breaker.put("shortCircuited", stats.getShortCircuitedCount());
+            breaker.put("slowCall", stats.getSlowCallCount());
+        });
+
+        try {
+            final Path parent = file.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            final Path tmpFile = file.resolveSibling(file.getFileName() + ".tmp");
+            Files.write(tmpFile, Json.stringify(root).getBytes(StandardCharsets.UTF_8));
+            Files.move(tmpFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            logger.debug("Circuit breaker state saved, file:" + file + ",count:" + circuitBreakers.size());
+        } catch (final IOException e) {
+            logger.warn("Unable to save circuit breaker state, file:" + file, e);
+        }
+    }
+
+    /**
+     * @param circuitBreakers resolves (creating if needed) a circuit breaker by group and command key
+     */
+    void restore(final BiFunction<String, String, DefaultHysterixCircuitBreaker> circuitBreakers) {
+        if (!Files.exists(file)) {
+            return;
+        }
+
+        final JsonNode root;
+        try (final InputStream inputStream = Files.newInputStream(file)) {
+            root = Json.parse(inputStream);
+        } catch (final IOException | RuntimeException e) {
+            logger.warn("Unable to read circuit breaker state, file:" + file, e);
+            return;
+        }
+
+        final long ageMs = System.currentTimeMillis() - root.path("savedAt").asLong();
+        if (root.path("version").asInt() != VERSION || ageMs > maxAgeMs) {
+            logger.info("Ignoring circuit breaker state, ageMs:" + ageMs + ",file:" + file);
+            return;
+        }
+
+        for (final JsonNode breaker : root.path("circuitBreakers")) {
+            try {
+                restoreCircuitBreaker(breaker, circuitBreakers);
+            } catch (final RuntimeException e) {
+                //e.g. open reason unknown to this version, such a circuit breaker starts from scratch
+                logger.warn("Unable to restore circuit breaker state, skipping it, entry:" + breaker + ",file:" + file, e);
+            }
+        }
+        logger.info("Circuit breaker state restored, ageMs:" + ageMs + ",file:" + file);
+    }
+
+    private void restoreCircuitBreaker(final JsonNode breaker, final BiFunction<String, String, DefaultHysterixCircuitBreaker> circuitBreakers) {
+        //parsed before anything is restored, so a bad entry leaves its circuit breaker untouched
+        final Optional<HysterixCircuitOpenReason> reason = breaker.hasNonNull("openReason")
+                ? Optional.of(HysterixCircuitOpenReason.valueOf(breaker.get("openReason").asText()))
+                : Optional.empty();
+
+        final DefaultHysterixCircuitBreaker circuitBreaker = circuitBreakers.apply(breaker.path("group").asText(), breaker.path("key").asText());
+        circuitBreaker.getRollingHysterixGlobalStatistics().restoreCounts(breaker.path("success").asLong(),
+                breaker.path("failure").asLong(),
+                breaker.path("timeout").asLong(),
+                breaker.path("exceptionsThrown").asLong(),
+                breaker.path("shortCircuited").asLong(),
+                breaker.path("slowCall").asLong());
+        if (breaker.path("open").asBoolean()) {
+            circuitBreaker.restoreOpen(breaker.path("openedOrLastTestedTime").asLong(), reason);
+        }
+    }
+
+}
@@ -0,0 +1,13 @@
+package com.github.mati1979.play.hysterix.circuit;
+
+/**
+ * Condition which tripped a circuit breaker.
+ */
+public enum HysterixCircuitOpenReason {
+
+    ERROR_RATE, SLOW_CALL_RATE,
+
+    //opened pre-emptively because a quorum of peer nodes sees the dependency failing
+    PEER_QUORUM
+
+}
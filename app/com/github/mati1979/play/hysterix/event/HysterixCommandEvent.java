@@ -8,16 +8,29 @@ import com.github.mati1979.play.hysterix.HysterixCommand;
 public class HysterixCommandEvent {
 
     private final HysterixCommand command;
+    private final boolean sampled;
     private final long currentTime = System.currentTimeMillis();
 
     public HysterixCommandEvent(final HysterixCommand command) {
+        this(command, true);
+    }
+
+    /**
+     * @param sampled whether event should be forwarded in detail, not sampled events are only counted in statistics
+     */
+    public HysterixCommandEvent(final HysterixCommand command, final boolean sampled) {
         this.command = command;
+        this.sampled = sampled;
     }
 
     public HysterixCommand getHysterixCommand() {
         return command;
     }
 
+    public boolean isSampled() {
+        return sampled;
+    }
+
     public long getCurrentTime() {
         return currentTime;
     }
@@ -26,6 +39,7 @@ public class HysterixCommandEvent {
     public String toString() {
         return "HysterixCommandEvent{" +
                 "command=" + command +
+                ", sampled=" + sampled +
                 ", currentTime=" + currentTime +
                 '}';
     }
@@ -0,0 +1,91 @@
+package com.github.mati1979.play.hysterix.event;
+
+import com.github.mati1979.play.hysterix.HysterixCommand;
+import com.github.mati1979.play.hysterix.HysterixSettings;
+import com.github.mati1979.play.hysterix.registry.HysterixCommandArray;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Decides which completed commands are forwarded in detail (statistics event stream, request log), statistics counters
+ * are always updated regardless of the decision.
+ *
+ * Each command key is sampled with a probability derived from its throughput in the previous second, so that roughly
+ * eventSamplingTargetEventsPerSecond events per key are forwarded no matter how high traffic is.
+ * Errors and executions which observed a circuit breaker transition are always forwarded.
+ */
+public class HysterixEventSampler {
+
+    private final HysterixSettings hysterixSettings;
+
+    private final HysterixCommandArray<KeyState> states = new HysterixCommandArray<>();
+
+    private final AtomicLong forwardedCount = new AtomicLong();
+    private final AtomicLong droppedCount = new AtomicLong();
+
+    public HysterixEventSampler(final HysterixSettings hysterixSettings) {
+        this.hysterixSettings = hysterixSettings;
+    }
+
+    public boolean sample(final HysterixCommand<?> command) {
+        if (!hysterixSettings.isEventSamplingEnabled()) {
+            return true;
+        }
+
+        final int commandIndex = command.getCommandIndex();
+        KeyState state = states.get(commandIndex);
+        if (state == null) {
+            state = states.computeIfAbsent(commandIndex, i -> new KeyState());
+        }
+
+        final boolean sampled = state.sample(hysterixSettings.getEventSamplingTargetEventsPerSecond());
+        final boolean transition = state.checkTransition(command.getHysterixCircuitBreaker().getTransitionCount());
+        if (sampled || transition || command.getMetadata().isError()) {
+            forwardedCount.incrementAndGet();
+            return true;
+        }
+
+        droppedCount.incrementAndGet();
+        return false;
+    }
+
+    public long getForwardedCount() {
+        return forwardedCount.get();
+    }
+
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    //updates are racy by design, a slightly inaccurate probability is fine for sampling
+    private static final class KeyState {
+
+        private final AtomicLong currentSecond = new AtomicLong();
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong lastTransitionCount = new AtomicLong();
+        private volatile double probability = 1.0D;
+
+        private boolean sample(final int targetEventsPerSecond) {
+            final long now = System.currentTimeMillis() / 1000;
+            final long second = currentSecond.get();
+            if (now != second && currentSecond.compareAndSet(second, now)) {
+                final long lastCount = count.getAndSet(0);
+                probability = lastCount <= targetEventsPerSecond ? 1.0D : (double) targetEventsPerSecond / lastCount;
+            }
+            count.incrementAndGet();
+
+            final double currentProbability = probability;
+
+            return currentProbability >= 1.0D || ThreadLocalRandom.current().nextDouble() < currentProbability;
+        }
+
+        private boolean checkTransition(final long transitionCount) {
+            final long last = lastTransitionCount.get();
+
+            return transitionCount != last && lastTransitionCount.compareAndSet(last, transitionCount);
+        }
+
+    }
+
+}
@@ -0,0 +1,277 @@
+package com.github.mati1979.play.hysterix.gossip;
+
+import com.github.mati1979.play.hysterix.HysterixSettings;
+import com.github.mati1979.play.hysterix.circuit.DefaultHysterixCircuitBreaker;
+import com.github.mati1979.play.hysterix.circuit.HysterixCircuitBreakerHolder;
+import com.github.mati1979.play.hysterix.circuit.HysterixCircuitBreakerPeers;
+import com.github.mati1979.play.hysterix.circuit.HysterixCircuitOpenReason;
+import com.github.mati1979.play.hysterix.stats.RollingHysterixGlobalStatistics;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.SocketException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Lightweight UDP gossip of circuit breaker state between nodes. Each node periodically broadcasts state and rolling
+ * health counts of its circuit breakers to configured peers, and immediately on every open / close transition.
+ *
+ * A peer counts as seeing a dependency failing if its circuit is open or its rolling error rate is over the threshold
+ * with enough request volume, once gossipQuorum peers do, local circuit breaker opens pre-emptively (PEER_QUORUM).
+ * Peer state older than gossipMaxAgeMs is ignored.
+ *
+ * Only packets sent from a configured peer address are accepted and peer state is keyed by that address, so neither an
+ * unknown sender nor a restarted peer (new nodeId) adds to the quorum. A node gossips its own evidence only: counts without
+ * short-circuited calls and open only if the circuit was not opened by PEER_QUORUM, so a quorum cannot keep itself alive.
+ */
+public class HysterixGossip implements HysterixCircuitBreakerPeers {
+
+    private static final play.Logger.ALogger logger = play.Logger.of(HysterixGossip.class);
+
+    private static final int VERSION = 1;
+    private static final int MAX_ENTRIES_PER_PACKET = 32;
+    private static final int MAX_PACKET_SIZE = 65507;
+
+    private final HysterixSettings hysterixSettings;
+    private final String nodeId = UUID.randomUUID().toString();
+    private final List<InetSocketAddress> peerAddresses;
+    private final Set<SocketAddress> acceptedAddresses;
+    private final int quorum;
+
+    //commandGroupKey -> commandKey -> peers view, nested maps so that lookups do not allocate a composite key
+    private final Map<String, Map<String, PeerView>> peerViews = new ConcurrentHashMap<>();
+
+    private final DatagramSocket socket;
+    private final ScheduledExecutorService scheduledExecutorService;
+    private final Thread receiver;
+
+    private volatile HysterixCircuitBreakerHolder hysterixCircuitBreakerHolder;
+
+    public HysterixGossip(final HysterixSettings hysterixSettings) throws SocketException {
+        this.hysterixSettings = hysterixSettings;
+        this.peerAddresses = hysterixSettings.getGossipPeers().stream().map(HysterixGossip::toAddress).collect(Collectors.toList());
+        this.acceptedAddresses = ImmutableSet.copyOf(peerAddresses);
+        this.quorum = hysterixSettings.getGossipQuorum() > 0 ? hysterixSettings.getGossipQuorum() : peerAddresses.size() / 2 + 1;
+        this.socket = new DatagramSocket(toAddress(hysterixSettings.getGossipBindAddress()));
+        this.scheduledExecutorService = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+                .setDaemon(true)
+                .setNameFormat("hysterix-gossip-sender-%d")
+                .build());
+        this.receiver = new ThreadFactoryBuilder()
+                .setDaemon(true)
+                .setNameFormat("hysterix-gossip-receiver-%d")
+                .build()
+                .newThread(() -> receive());
+    }
+
+    @Override
+    public void attach(final HysterixCircuitBreakerHolder hysterixCircuitBreakerHolder) {
+        this.hysterixCircuitBreakerHolder = hysterixCircuitBreakerHolder;
+        receiver.start();
+        final long intervalMs = hysterixSettings.getGossipIntervalMs();
+        scheduledExecutorService.scheduleAtFixedRate(() -> broadcastAll(), intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+        logger.info("Gossip started, nodeId:" + nodeId + ",bind:" + socket.getLocalSocketAddress() + ",peers:" + peerAddresses + ",quorum:" + quorum);
+    }
+
+    @Override
+    public long getQuorumOpenSince(final String commandGroupKey, final String commandKey) {
+        final Map<String, PeerView> groupViews = peerViews.get(commandGroupKey);
+        if (groupViews == null) {
+            return 0;
+        }
+        final PeerView peerView = groupViews.get(commandKey);
+
+        return peerView == null ? 0 : peerView.getQuorumOpenSince(hysterixSettings.getGossipMaxAgeMs());
+    }
+
+    @Override
+    public void onTransition(final DefaultHysterixCircuitBreaker circuitBreaker) {
+        //sent from the scheduler thread, the transitioning request should not pay for socket i/o
+        scheduledExecutorService.execute(() -> broadcast(ImmutableList.of(circuitBreaker)));
+    }
+
+    @Override
+    public void shutdown() {
+        scheduledExecutorService.shutdownNow();
+        socket.close();
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public int getQuorum() {
+        return quorum;
+    }
+
+    private void broadcastAll() {
+        final HysterixCircuitBreakerHolder holder = hysterixCircuitBreakerHolder;
+        final List<DefaultHysterixCircuitBreaker> circuitBreakers = new ArrayList<>(holder.getAll());
+        circuitBreakers.addAll(holder.getAllGroup());
+        for (int from = 0; from < circuitBreakers.size(); from += MAX_ENTRIES_PER_PACKET) {
+            broadcast(circuitBreakers.subList(from, Math.min(circuitBreakers.size(), from + MAX_ENTRIES_PER_PACKET)));
+        }
+    }
+
+    private void broadcast(final Collection<DefaultHysterixCircuitBreaker> circuitBreakers) {
+        if (circuitBreakers.isEmpty()) {
+            return;
+        }
+
+        final byte[] data;
+        try {
+            data = encode(circuitBreakers);
+        } catch (final IOException e) {
+            logger.warn("Unable to encode gossip packet", e);
+            return;
+        }
+        if (data.length > MAX_PACKET_SIZE) {
+            logger.warn("Gossip packet too large, size:" + data.length);
+            return;
+        }
+
+        for (final InetSocketAddress peerAddress : peerAddresses) {
+            try {
+                socket.send(new DatagramPacket(data, data.length, peerAddress));
+            } catch (final IOException e) {
+                logger.debug("Unable to send gossip packet to:" + peerAddress, e);
+            }
+        }
+    }
+
+    private byte[] encode(final Collection<DefaultHysterixCircuitBreaker> circuitBreakers) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream(512);
+        final DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(VERSION);
+        out.writeUTF(nodeId);
+        out.writeShort(circuitBreakers.size());
+        for (final DefaultHysterixCircuitBreaker circuitBreaker : circuitBreakers) {
+            final RollingHysterixGlobalStatistics stats = circuitBreaker.getRollingHysterixGlobalStatistics();
+            out.writeUTF(circuitBreaker.getCommandGroupKey());
+            out.writeUTF(circuitBreaker.getCommandKey());
+            //short-circuited calls and a circuit opened by peers are peers' evidence, not ours
+            final long shortCircuitedCount = stats.getShortCircuitedCount();
+            final boolean openedByPeers = circuitBreaker.getLastOpenReason().filter(HysterixCircuitOpenReason.PEER_QUORUM::equals).isPresent();
+            out.writeBoolean(circuitBreaker.isCircuitOpen() && !openedByPeers);
+            out.writeInt((int) Math.min(Integer.MAX_VALUE, Math.max(0, stats.getTotalCount() - shortCircuitedCount)));
+            out.writeInt((int) Math.min(Integer.MAX_VALUE, Math.max(0, stats.getErrorCount() - shortCircuitedCount)));
+        }
+        out.flush();
+
+        return bytes.toByteArray();
+    }
+
+    private void receive() {
+        final byte[] buffer = new byte[MAX_PACKET_SIZE];
+        while (!socket.isClosed()) {
+            final DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
+            try {
+                socket.receive(packet);
+                final SocketAddress peerAddress = packet.getSocketAddress();
+                if (!acceptedAddresses.contains(peerAddress)) {
+                    logger.debug("Ignoring gossip packet from unknown address:" + peerAddress);
+                    continue;
+                }
+                decode(peerAddress, new DataInputStream(new ByteArrayInputStream(packet.getData(), packet.getOffset(), packet.getLength())));
+            } catch (final SocketException e) {
+                if (!socket.isClosed()) {
+                    logger.warn("Gossip socket failed", e);
+                }
+            } catch (final IOException | RuntimeException e) {
+                logger.warn("Ignoring malformed gossip packet from:" + packet.getSocketAddress(), e);
+            }
+        }
+    }
+
+    private void decode(final SocketAddress peerAddress, final DataInputStream in) throws IOException {
+        if (in.readByte() != VERSION) {
+            return;
+        }
+        final String peerId = in.readUTF();
+        if (nodeId.equals(peerId)) {
+            return;
+        }
+
+        final long now = System.currentTimeMillis();
+        final int count = in.readUnsignedShort();
+        for (int i = 0; i < count; i++) {
+            final String commandGroupKey = in.readUTF();
+            final String commandKey = in.readUTF();
+            final boolean open = in.readBoolean();
+            final int totalCount = in.readInt();
+            final int errorCount = in.readInt();
+            final boolean failing = open || isFailing(totalCount, errorCount);
+
+            peerViews.computeIfAbsent(commandGroupKey, k -> new ConcurrentHashMap<>())
+                    .computeIfAbsent(commandKey, k -> new PeerView())
+                    .update(peerAddress, failing, now, quorum, hysterixSettings.getGossipMaxAgeMs());
+        }
+    }
+
+    private boolean isFailing(final int totalCount, final int errorCount) {
+        return totalCount >= hysterixSettings.getCircuitBreakerRequestVolumeThreshold()
+                && (int) ((double) errorCount / totalCount * 100) >= hysterixSettings.getCircuitBreakerErrorThresholdPercentage();
+    }
+
+    private static InetSocketAddress toAddress(final String hostAndPort) {
+        final int separator = hostAndPort.lastIndexOf(':');
+        if (separator < 0) {
+            throw new IllegalArgumentException("Expected host:port, got:" + hostAndPort);
+        }
+
+        return new InetSocketAddress(hostAndPort.substring(0, separator), Integer.parseInt(hostAndPort.substring(separator + 1)));
+    }
+
+    //what peers think of a single circuit, updated by the receiver thread only
+    private static final class PeerView {
+
+        private final Map<SocketAddress, long[]> failingSince = new ConcurrentHashMap<>(); //peer address -> [lastSeen, failing 0/1]
+        private volatile long quorumOpenSince = 0;
+        private volatile long updatedAt = 0;
+
+        private void update(final SocketAddress peerAddress, final boolean failing, final long now, final int quorum, final long maxAgeMs) {
+            failingSince.put(peerAddress, new long[] { now, failing ? 1 : 0 });
+            final long failingPeers = failingSince.values().stream().filter(state -> state[1] == 1 && now - state[0] <= maxAgeMs).count();
+            if (failingPeers >= quorum) {
+                if (quorumOpenSince == 0) {
+                    quorumOpenSince = now;
+                }
+            } else {
+                quorumOpenSince = 0;
+            }
+            failingSince.values().removeIf(state -> now - state[0] > maxAgeMs);
+            updatedAt = now;
+        }
+
+        private long getQuorumOpenSince(final long maxAgeMs) {
+            //peers went silent, their view is no longer trustworthy
+            if (System.currentTimeMillis() - updatedAt > maxAgeMs) {
+                return 0;
+            }
+
+            return quorumOpenSince;
+        }
+
+    }
+
+}
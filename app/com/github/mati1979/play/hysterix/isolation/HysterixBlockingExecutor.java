@@ -0,0 +1,76 @@
+package com.github.mati1979.play.hysterix.isolation;
+
+import com.github.mati1979.play.hysterix.HysterixSettings;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import play.libs.F;
+
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs blocking calls off play's event loop, on a virtual thread per task when JVM supports it (java 21+),
+ * otherwise on a bounded pool of platform threads. Calls exceeding their timeout are interrupted.
+ */
+public class HysterixBlockingExecutor {
+
+    private static final play.Logger.ALogger logger = play.Logger.of(HysterixBlockingExecutor.class);
+
+    private final ExecutorService executorService;
+    private final ScheduledExecutorService timeoutScheduler;
+    private final boolean virtualThreads;
+
+    public HysterixBlockingExecutor(final HysterixSettings hysterixSettings) {
+        final Optional<ExecutorService> virtualThreadExecutor = hysterixSettings.isBlockingExecutionVirtualThreadsEnabled()
+                ? newVirtualThreadPerTaskExecutor() : Optional.empty();
+
+        this.virtualThreads = virtualThreadExecutor.isPresent();
+        this.executorService = virtualThreadExecutor.orElseGet(() -> newPlatformThreadPool(hysterixSettings.getBlockingExecutionPlatformPoolSize()));
+        this.timeoutScheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+                .setDaemon(true)
+                .setNameFormat("hysterix-blocking-timeout-%d")
+                .build());
+    }
+
+    public <T> F.Promise<T> submit(final Callable<T> callable, final long timeoutMs, final Runnable onFinish) {
+        try {
+            return HysterixCalls.submit(executorService, timeoutScheduler, callable, timeoutMs, onFinish);
+        } catch (final RejectedExecutionException e) {
+            return F.Promise.throwing(e);
+        }
+    }
+
+    public boolean isVirtualThreads() {
+        return virtualThreads;
+    }
+
+    public void shutdown() {
+        executorService.shutdownNow();
+        timeoutScheduler.shutdownNow();
+    }
+
+    private static Optional<ExecutorService> newVirtualThreadPerTaskExecutor() {
+        try {
+            return Optional.of((ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null));
+        } catch (final Exception e) {
+            logger.info("Virtual threads not available, using platform thread pool for blocking commands.");
+            return Optional.empty();
+        }
+    }
+
+    private static ExecutorService newPlatformThreadPool(final int poolSize) {
+        final ThreadPoolExecutor threadPoolExecutor = new ThreadPoolExecutor(poolSize, poolSize, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(),
+                new ThreadFactoryBuilder().setDaemon(true).setNameFormat("hysterix-blocking-%d").build());
+        threadPoolExecutor.allowCoreThreadTimeOut(true);
+
+        return threadPoolExecutor;
+    }
+
+}
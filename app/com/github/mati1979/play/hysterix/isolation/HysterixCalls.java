@@ -0,0 +1,83 @@
+package com.github.mati1979.play.hysterix.isolation;
+
+import com.github.mati1979.play.hysterix.HysterixExecution;
+import play.libs.F;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+final class HysterixCalls {
+
+    private HysterixCalls() {
+    }
+
+    /**
+     * Submits a call to the executor, call running longer than timeoutMs (if positive) is interrupted and promise fails with TimeoutException.
+     * onFinish is invoked exactly once, when the call really finished, was rejected or timed out while still queued.
+     *
+     * @throws RejectedExecutionException if executor rejected the call
+     */
+    static <T> F.Promise<T> submit(final ExecutorService executorService,
+                                   final ScheduledExecutorService timeoutScheduler,
+                                   final Callable<T> callable,
+                                   final long timeoutMs,
+                                   final Runnable onFinish) {
+        final F.RedeemablePromise<T> promise = F.RedeemablePromise.empty();
+        final AtomicBoolean completed = new AtomicBoolean(false);
+        /* claimed either by the call when it starts or by the timeout while call is still queued */
+        final AtomicBoolean started = new AtomicBoolean(false);
+
+        final Future<?> future;
+        try {
+            future = executorService.submit(() -> {
+                if (!started.compareAndSet(false, true)) {
+                    return;
+                }
+                try {
+                    final T data = callable.call();
+                    if (completed.compareAndSet(false, true)) {
+                        promise.success(data);
+                    }
+                } catch (final Throwable t) {
+                    if (completed.compareAndSet(false, true)) {
+                        promise.failure(t);
+                    }
+                } finally {
+                    onFinish.run();
+                }
+            });
+        } catch (final RejectedExecutionException e) {
+            onFinish.run();
+            throw e;
+        }
+
+        if (timeoutMs <= 0) {
+            return promise;
+        }
+
+        final ScheduledFuture<?> timeout = timeoutScheduler.schedule(() -> {
+            if (completed.compareAndSet(false, true)) {
+                if (started.compareAndSet(false, true)) {
+                    //call never started and never will, so it is not going to invoke onFinish itself
+                    future.cancel(false);
+                    onFinish.run();
+                } else {
+                    future.cancel(true);
+                }
+                promise.failure(new TimeoutException("Call timed out after " + timeoutMs + " ms"));
+            }
+        }, timeoutMs, TimeUnit.MILLISECONDS);
+        promise.onRedeem(data -> timeout.cancel(false), HysterixExecution.sameThreadContext());
+        promise.onFailure(t -> timeout.cancel(false), HysterixExecution.sameThreadContext());
+
+        return promise;
+    }
+
+}
@@ -0,0 +1,100 @@
+package com.github.mati1979.play.hysterix.isolation;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket, whole bucket state is packed into a single long - theoretical arrival time of the next permit
+ * (GCRA), from which both last refill time and number of available tokens follow. A permit is taken with a single CAS,
+ * no locks nor refill timers are needed. Limit may be changed at runtime, bucket state is kept.
+ */
+public class HysterixRateLimiter {
+
+    private final String key;
+
+    private final AtomicLong theoreticalArrivalNanos;
+    private final AtomicLong rejectedCount = new AtomicLong();
+
+    private volatile Limit limit;
+
+    public HysterixRateLimiter(final String key, final double permitsPerSecond, final int burst) {
+        this.key = key;
+        this.limit = new Limit(permitsPerSecond, burst);
+        this.theoreticalArrivalNanos = new AtomicLong(System.nanoTime());
+    }
+
+    public boolean tryAcquire() {
+        final Limit limit = this.limit;
+        final long now = System.nanoTime();
+        while (true) {
+            final long current = theoreticalArrivalNanos.get();
+            final long next = Math.max(current - now, 0) + now;
+            if (next - now > limit.toleranceNanos) {
+                rejectedCount.incrementAndGet();
+                return false;
+            }
+            if (theoreticalArrivalNanos.compareAndSet(current, next + limit.intervalNanos)) {
+                return true;
+            }
+        }
+    }
+
+    public void setLimit(final double permitsPerSecond, final int burst) {
+        this.limit = new Limit(permitsPerSecond, burst);
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public double getPermitsPerSecond() {
+        return limit.permitsPerSecond;
+    }
+
+    public int getBurst() {
+        return limit.burst;
+    }
+
+    public int getAvailablePermits() {
+        final Limit limit = this.limit;
+        final long backlogNanos = Math.max(theoreticalArrivalNanos.get() - System.nanoTime(), 0);
+
+        return (int) Math.max(0, (limit.toleranceNanos - backlogNanos) / limit.intervalNanos + 1);
+    }
+
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+
+    @Override
+    public String toString() {
+        return "HysterixRateLimiter{" +
+                "key='" + key + '\'' +
+                ", permitsPerSecond=" + getPermitsPerSecond() +
+                ", burst=" + getBurst() +
+                ", availablePermits=" + getAvailablePermits() +
+                ", rejectedCount=" + rejectedCount +
+                '}';
+    }
+
+    private static final class Limit {
+
+        private final double permitsPerSecond;
+        private final int burst;
+        private final long intervalNanos;
+        //how far ahead of now theoretical arrival time may be, burst - 1 permits may be taken ahead of the rate
+        private final long toleranceNanos;
+
+        private Limit(final double permitsPerSecond, final int burst) {
+            if (permitsPerSecond <= 0 || burst < 1) {
+                throw new IllegalArgumentException("Invalid rate limit, permitsPerSecond:" + permitsPerSecond + ",burst:" + burst);
+            }
+            this.permitsPerSecond = permitsPerSecond;
+            this.burst = burst;
+            this.intervalNanos = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond));
+            this.toleranceNanos = intervalNanos * (burst - 1);
+        }
+
+    }
+
+}
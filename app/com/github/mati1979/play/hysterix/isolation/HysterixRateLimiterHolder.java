@@ -0,0 +1,84 @@
+package com.github.mati1979.play.hysterix.isolation;
+
+import com.github.mati1979.play.hysterix.HysterixCommand;
+import com.github.mati1979.play.hysterix.HysterixSettings;
+import com.github.mati1979.play.hysterix.registry.HysterixCommandArray;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Rate limiters keyed either by "commandGroupKey.commandKey" (per command) or by "commandGroupKey" (per group),
+ * per command limit takes precedence. Commands without a configured limit are not limited.
+ * The limiter a command resolves to is cached by command index, limits added or removed at runtime invalidate the cache.
+ */
+public class HysterixRateLimiterHolder {
+
+    private final Map<String, HysterixRateLimiter> cache = new ConcurrentHashMap<>();
+
+    //replaced after every change of keys in cache, a command resolving against the old keys stores into the old array
+    private volatile HysterixCommandArray<Optional<HysterixRateLimiter>> resolved = new HysterixCommandArray<>();
+
+    public HysterixRateLimiterHolder(final HysterixSettings hysterixSettings) {
+        hysterixSettings.getRateLimits().forEach((key, limit) -> setRateLimit(key, limit[0], (int) limit[1]));
+    }
+
+    public Optional<HysterixRateLimiter> findRateLimiter(final HysterixCommand hysterixCommand) {
+        if (cache.isEmpty()) {
+            return Optional.empty();
+        }
+        final HysterixCommandArray<Optional<HysterixRateLimiter>> resolved = this.resolved;
+        final int commandIndex = hysterixCommand.getCommandIndex();
+        final Optional<HysterixRateLimiter> rateLimiter = resolved.get(commandIndex);
+        if (rateLimiter != null) {
+            return rateLimiter;
+        }
+
+        return resolved.computeIfAbsent(commandIndex, i -> resolve(hysterixCommand));
+    }
+
+    private Optional<HysterixRateLimiter> resolve(final HysterixCommand hysterixCommand) {
+        final String commandGroupKey = (String) hysterixCommand.getCommandGroupKey().orElse("");
+        final HysterixRateLimiter commandRateLimiter = cache.get(commandGroupKey + "." + hysterixCommand.getCommandKey());
+        if (commandRateLimiter != null) {
+            return Optional.of(commandRateLimiter);
+        }
+
+        return Optional.ofNullable(cache.get(commandGroupKey));
+    }
+
+    public Optional<HysterixRateLimiter> findRateLimiter(final String key) {
+        return Optional.ofNullable(cache.get(key));
+    }
+
+    /**
+     * Creates or adjusts a limit at runtime, adjusting keeps already taken permits.
+     */
+    public HysterixRateLimiter setRateLimit(final String key, final double permitsPerSecond, final int burst) {
+        final HysterixRateLimiter existing = cache.get(key);
+        if (existing != null) {
+            existing.setLimit(permitsPerSecond, burst);
+            return existing;
+        }
+
+        final HysterixRateLimiter rateLimiter = cache.computeIfAbsent(key, k -> new HysterixRateLimiter(k, permitsPerSecond, burst));
+        rateLimiter.setLimit(permitsPerSecond, burst);
+        resolved = new HysterixCommandArray<>();
+
+        return rateLimiter;
+    }
+
+    public void removeRateLimit(final String key) {
+        if (cache.remove(key) != null) {
+            resolved = new HysterixCommandArray<>();
+        }
+    }
+
+    public Collection<HysterixRateLimiter> getAll() {
+        return Collections.unmodifiableCollection(cache.values());
+    }
+
+}
@@ -0,0 +1,65 @@
+package com.github.mati1979.play.hysterix.isolation;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Non blocking semaphore, a permit is either acquired immediately or request is rejected and counted.
+ */
+public class HysterixSemaphore {
+
+    private final String key;
+    private final int maxConcurrentRequests;
+
+    private final AtomicInteger activeCount = new AtomicInteger();
+    private final AtomicLong rejectedCount = new AtomicLong();
+
+    public HysterixSemaphore(final String key, final int maxConcurrentRequests) {
+        this.key = key;
+        this.maxConcurrentRequests = maxConcurrentRequests;
+    }
+
+    public boolean tryAcquire() {
+        while (true) {
+            final int current = activeCount.get();
+            if (current >= maxConcurrentRequests) {
+                rejectedCount.incrementAndGet();
+                return false;
+            }
+            if (activeCount.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    public void release() {
+        activeCount.decrementAndGet();
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public int getMaxConcurrentRequests() {
+        return maxConcurrentRequests;
+    }
+
+    public int getActiveCount() {
+        return activeCount.get();
+    }
+
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+
+    @Override
+    public String toString() {
+        return "HysterixSemaphore{" +
+                "key='" + key + '\'' +
+                ", maxConcurrentRequests=" + maxConcurrentRequests +
+                ", activeCount=" + activeCount +
+                ", rejectedCount=" + rejectedCount +
+                '}';
+    }
+
+}
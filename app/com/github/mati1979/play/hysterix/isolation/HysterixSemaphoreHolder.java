@@ -0,0 +1,71 @@
+package com.github.mati1979.play.hysterix.isolation;
+
+import com.github.mati1979.play.hysterix.HysterixCommand;
+import com.github.mati1979.play.hysterix.HysterixSettings;
+import com.github.mati1979.play.hysterix.registry.HysterixCommandArray;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Semaphores keyed by "commandGroupKey.commandKey", a command looks its semaphores up by command index.
+ */
+public class HysterixSemaphoreHolder {
+
+    private final Map<String, HysterixSemaphore> fallbackCache = new ConcurrentHashMap<>();
+    private final Map<String, HysterixSemaphore> executionCache = new ConcurrentHashMap<>();
+
+    private final HysterixCommandArray<HysterixSemaphore> fallbackByCommand = new HysterixCommandArray<>();
+    private final HysterixCommandArray<HysterixSemaphore> executionByCommand = new HysterixCommandArray<>();
+
+    private final HysterixSettings hysterixSettings;
+
+    public HysterixSemaphoreHolder(final HysterixSettings hysterixSettings) {
+        this.hysterixSettings = hysterixSettings;
+    }
+
+    public HysterixSemaphore getFallbackSemaphore(final HysterixCommand hysterixCommand) {
+        final HysterixSemaphore semaphore = fallbackByCommand.get(hysterixCommand.getCommandIndex());
+        if (semaphore != null) {
+            return semaphore;
+        }
+
+        return fallbackByCommand.computeIfAbsent(hysterixCommand.getCommandIndex(),
+                i -> getFallbackSemaphore((String) hysterixCommand.getCommandGroupKey().orElse(""), hysterixCommand.getCommandKey()));
+    }
+
+    public HysterixSemaphore getFallbackSemaphore(final String commandGroupKey, final String commandKey) {
+        final String key = String.format("%s.%s", commandGroupKey, commandKey);
+
+        return fallbackCache.computeIfAbsent(key, k -> new HysterixSemaphore(k, hysterixSettings.getFallbackIsolationSemaphoreMaxConcurrentRequests()));
+    }
+
+    public HysterixSemaphore getExecutionSemaphore(final HysterixCommand hysterixCommand, final int maxConcurrentRequests) {
+        final HysterixSemaphore semaphore = executionByCommand.get(hysterixCommand.getCommandIndex());
+        if (semaphore != null) {
+            return semaphore;
+        }
+
+        return executionByCommand.computeIfAbsent(hysterixCommand.getCommandIndex(), i -> {
+            final String key = String.format("%s.%s", hysterixCommand.getCommandGroupKey().orElse(""), hysterixCommand.getCommandKey());
+
+            return executionCache.computeIfAbsent(key, k -> new HysterixSemaphore(k, maxConcurrentRequests));
+        });
+    }
+
+    public Optional<HysterixSemaphore> findExecutionSemaphore(final String commandGroupKey, final String commandKey) {
+        return Optional.ofNullable(executionCache.get(String.format("%s.%s", commandGroupKey, commandKey)));
+    }
+
+    public Collection<HysterixSemaphore> getAllExecution() {
+        return Collections.unmodifiableCollection(executionCache.values());
+    }
+
+    public Collection<HysterixSemaphore> getAllFallback() {
+        return Collections.unmodifiableCollection(fallbackCache.values());
+    }
+
+}
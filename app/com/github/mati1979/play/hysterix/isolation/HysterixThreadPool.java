@@ -0,0 +1,131 @@
+package com.github.mati1979.play.hysterix.isolation;
+
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.SlidingTimeWindowReservoir;
+import com.github.mati1979.play.hysterix.HysterixSettings;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import play.libs.F;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Named thread pool with a bounded queue, calls which do not fit into the queue are rejected.
+ */
+public class HysterixThreadPool {
+
+    private final String key;
+    private final int maxQueueSize;
+
+    private final ThreadPoolExecutor threadPoolExecutor;
+    private final ScheduledExecutorService timeoutScheduler;
+
+    private final Histogram countThreadsExecuted;
+    private final Histogram countRejected;
+    private final Histogram activeThreads;
+
+    public HysterixThreadPool(final String key,
+                              final HysterixSettings hysterixSettings,
+                              final ScheduledExecutorService timeoutScheduler) {
+        this.key = key;
+        this.maxQueueSize = hysterixSettings.getThreadPoolMaxQueueSize(key);
+        this.timeoutScheduler = timeoutScheduler;
+
+        final int coreSize = hysterixSettings.getThreadPoolCoreSize(key);
+        final BlockingQueue<Runnable> queue = maxQueueSize > 0 ? new ArrayBlockingQueue<>(maxQueueSize) : new SynchronousQueue<>();
+        this.threadPoolExecutor = new ThreadPoolExecutor(coreSize, coreSize, 60, TimeUnit.SECONDS, queue,
+                new ThreadFactoryBuilder().setDaemon(true).setNameFormat("hysterix-" + key + "-%d").build());
+
+        final long rollingTimeWindowIntervalInMs = hysterixSettings.getRollingTimeWindowIntervalInMs();
+        this.countThreadsExecuted = new Histogram(new SlidingTimeWindowReservoir(rollingTimeWindowIntervalInMs, TimeUnit.MILLISECONDS));
+        this.countRejected = new Histogram(new SlidingTimeWindowReservoir(rollingTimeWindowIntervalInMs, TimeUnit.MILLISECONDS));
+        this.activeThreads = new Histogram(new SlidingTimeWindowReservoir(rollingTimeWindowIntervalInMs, TimeUnit.MILLISECONDS));
+    }
+
+    /**
+     * @throws RejectedExecutionException if all threads are busy and queue is full
+     */
+    public <T> F.Promise<T> submit(final Callable<T> callable, final long timeoutMs, final Runnable onFinish) {
+        try {
+            final F.Promise<T> promise = HysterixCalls.submit(threadPoolExecutor, timeoutScheduler, callable, timeoutMs, onFinish);
+            countThreadsExecuted.update(1);
+            activeThreads.update(threadPoolExecutor.getActiveCount());
+
+            return promise;
+        } catch (final RejectedExecutionException e) {
+            countRejected.update(1);
+            throw e;
+        }
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public int getCurrentActiveCount() {
+        return threadPoolExecutor.getActiveCount();
+    }
+
+    public long getCurrentCompletedTaskCount() {
+        return threadPoolExecutor.getCompletedTaskCount();
+    }
+
+    public int getCurrentCorePoolSize() {
+        return threadPoolExecutor.getCorePoolSize();
+    }
+
+    public int getCurrentLargestPoolSize() {
+        return threadPoolExecutor.getLargestPoolSize();
+    }
+
+    public int getCurrentMaximumPoolSize() {
+        return threadPoolExecutor.getMaximumPoolSize();
+    }
+
+    public int getCurrentPoolSize() {
+        return threadPoolExecutor.getPoolSize();
+    }
+
+    public int getCurrentQueueSize() {
+        return threadPoolExecutor.getQueue().size();
+    }
+
+    public long getCurrentTaskCount() {
+        return threadPoolExecutor.getTaskCount();
+    }
+
+    public int getMaxQueueSize() {
+        return maxQueueSize;
+    }
+
+    public long getRollingCountThreadsExecuted() {
+        return countThreadsExecuted.getSnapshot().size();
+    }
+
+    public long getRollingCountRejected() {
+        return countRejected.getSnapshot().size();
+    }
+
+    public long getRollingMaxActiveThreads() {
+        return activeThreads.getSnapshot().getMax();
+    }
+
+    public void shutdown() {
+        threadPoolExecutor.shutdownNow();
+    }
+
+    @Override
+    public String toString() {
+        return "HysterixThreadPool{" +
+                "key='" + key + '\'' +
+                ", threadPoolExecutor=" + threadPoolExecutor +
+                '}';
+    }
+
+}
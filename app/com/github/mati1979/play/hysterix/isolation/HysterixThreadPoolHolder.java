@@ -0,0 +1,46 @@
+package com.github.mati1979.play.hysterix.isolation;
+
+import com.github.mati1979.play.hysterix.HysterixSettings;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+public class HysterixThreadPoolHolder {
+
+    private final Map<String, HysterixThreadPool> cache = new ConcurrentHashMap<>();
+
+    private final HysterixSettings hysterixSettings;
+
+    private final ScheduledExecutorService timeoutScheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+            .setDaemon(true)
+            .setNameFormat("hysterix-thread-pool-timeout-%d")
+            .build());
+
+    public HysterixThreadPoolHolder(final HysterixSettings hysterixSettings) {
+        this.hysterixSettings = hysterixSettings;
+    }
+
+    public HysterixThreadPool getThreadPool(final String threadPoolKey) {
+        return cache.computeIfAbsent(threadPoolKey, k -> new HysterixThreadPool(k, hysterixSettings, timeoutScheduler));
+    }
+
+    public Optional<HysterixThreadPool> findThreadPool(final String threadPoolKey) {
+        return Optional.ofNullable(cache.get(threadPoolKey));
+    }
+
+    public Collection<HysterixThreadPool> getAll() {
+        return Collections.unmodifiableCollection(cache.values());
+    }
+
+    public void shutdown() {
+        cache.values().forEach(HysterixThreadPool::shutdown);
+        timeoutScheduler.shutdownNow();
+    }
+
+}
@@ -0,0 +1,60 @@
+package com.github.mati1979.play.hysterix.jfr;
+
+import com.github.mati1979.play.hysterix.HysterixCommand;
+
+/**
+ * Emits JDK Flight Recorder events for command executions, circuit breaker transitions and request cache lookups.
+ *
+ * JFR classes are only touched if the running JVM provides them (java 11+, openjdk 8u262+), on older JVMs all methods
+ * are no-ops. When JFR is available but events are not enabled in a recording, cost is a single enabled check.
+ */
+public final class HysterixFlightRecorder {
+
+    private static final play.Logger.ALogger logger = play.Logger.of(HysterixFlightRecorder.class);
+
+    private static final boolean AVAILABLE = isJfrAvailable();
+
+    public static final String CIRCUIT_OPEN = "OPEN";
+    public static final String CIRCUIT_HALF_OPEN = "HALF_OPEN";
+    public static final String CIRCUIT_CLOSED = "CLOSED";
+
+    private HysterixFlightRecorder() {
+    }
+
+    public static void commandExecuted(final HysterixCommand<?> command) {
+        if (AVAILABLE) {
+            HysterixJfrEvents.commandExecuted(command);
+        }
+    }
+
+    public static void circuitBreakerTransition(final String commandGroupKey,
+                                                final String commandKey,
+                                                final String transition,
+                                                final int errorPercentage,
+                                                final String reason) {
+        if (AVAILABLE) {
+            HysterixJfrEvents.circuitBreakerTransition(commandGroupKey, commandKey, transition, errorPercentage, reason);
+        }
+    }
+
+    public static void requestCacheLookup(final HysterixCommand<?> command, final String requestCacheKey, final boolean hit) {
+        if (AVAILABLE) {
+            HysterixJfrEvents.requestCacheLookup(command, requestCacheKey, hit);
+        }
+    }
+
+    public static boolean isAvailable() {
+        return AVAILABLE;
+    }
+
+    private static boolean isJfrAvailable() {
+        try {
+            Class.forName("jdk.jfr.Event", false, HysterixFlightRecorder.class.getClassLoader());
+            return true;
+        } catch (final ClassNotFoundException | LinkageError e) {
+            logger.info("JDK Flight Recorder not available, Hysterix JFR events disabled.");
+            return false;
+        }
+    }
+
+}
@@ -0,0 +1,145 @@
+package com.github.mati1979.play.hysterix.jfr;
+
+import com.github.mati1979.play.hysterix.HysterixCommand;
+import com.github.mati1979.play.hysterix.HysterixExecutionPhase;
+import com.github.mati1979.play.hysterix.HysterixResponseMetadata;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Percentage;
+import jdk.jfr.Timespan;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JFR event types, only loaded by HysterixFlightRecorder once it verified that the JVM provides jdk.jfr.
+ */
+final class HysterixJfrEvents {
+
+    private HysterixJfrEvents() {
+    }
+
+    static void commandExecuted(final HysterixCommand<?> command) {
+        final CommandExecutionEvent event = new CommandExecutionEvent();
+        if (!event.shouldCommit()) {
+            return;
+        }
+
+        final HysterixResponseMetadata metadata = command.getMetadata();
+        event.commandGroupKey = command.getCommandGroupKey().orElse("");
+        event.commandKey = command.getCommandKey();
+        event.commandId = command.getCommandId();
+        event.executionEvents = metadata.getExecutionEvents().toString();
+        event.executionTime = metadata.getPhaseDuration(HysterixExecutionPhase.QUEUED, HysterixExecutionPhase.COMPLETED, TimeUnit.NANOSECONDS)
+                .orElse(metadata.getExecutionTime(TimeUnit.NANOSECONDS));
+        event.responseFromCache = metadata.isResponseFromCache();
+        event.error = metadata.isError();
+        event.remoteUrl = command.getRemoteUrl().orElse(null);
+        event.commit();
+    }
+
+    static void circuitBreakerTransition(final String commandGroupKey,
+                                         final String commandKey,
+                                         final String transition,
+                                         final int errorPercentage,
+                                         final String reason) {
+        final CircuitBreakerTransitionEvent event = new CircuitBreakerTransitionEvent();
+        if (!event.shouldCommit()) {
+            return;
+        }
+
+        event.commandGroupKey = commandGroupKey;
+        event.commandKey = commandKey;
+        event.transition = transition;
+        event.errorPercentage = errorPercentage / 100.0D;
+        event.reason = reason;
+        event.commit();
+    }
+
+    static void requestCacheLookup(final HysterixCommand<?> command, final String requestCacheKey, final boolean hit) {
+        final RequestCacheEvent event = new RequestCacheEvent();
+        if (!event.shouldCommit()) {
+            return;
+        }
+
+        event.commandKey = command.getCommandKey();
+        event.requestCacheKey = requestCacheKey;
+        event.hit = hit;
+        event.commit();
+    }
+
+    @Name("com.github.mati1979.play.hysterix.CommandExecution")
+    @Label("Hysterix Command Execution")
+    @Category("Hysterix")
+    static final class CommandExecutionEvent extends Event {
+
+        @Label("Command Group Key")
+        String commandGroupKey;
+
+        @Label("Command Key")
+        String commandKey;
+
+        @Label("Command Id")
+        String commandId;
+
+        @Label("Execution Events")
+        String executionEvents;
+
+        @Label("Execution Time")
+        @Timespan(Timespan.NANOSECONDS)
+        long executionTime;
+
+        @Label("Response From Cache")
+        boolean responseFromCache;
+
+        @Label("Error")
+        boolean error;
+
+        @Label("Remote Url")
+        String remoteUrl;
+
+    }
+
+    @Name("com.github.mati1979.play.hysterix.CircuitBreakerTransition")
+    @Label("Hysterix Circuit Breaker Transition")
+    @Category("Hysterix")
+    static final class CircuitBreakerTransitionEvent extends Event {
+
+        @Label("Command Group Key")
+        String commandGroupKey;
+
+        @Label("Command Key")
+        @Description("* for a group level circuit breaker")
+        String commandKey;
+
+        @Label("Transition")
+        String transition;
+
+        @Label("Error Percentage")
+        @Percentage
+        double errorPercentage;
+
+        @Label("Open Reason")
+        String reason;
+
+    }
+
+    @Name("com.github.mati1979.play.hysterix.RequestCache")
+    @Label("Hysterix Request Cache Lookup")
+    @Category("Hysterix")
+    static final class RequestCacheEvent extends Event {
+
+        @Label("Command Key")
+        String commandKey;
+
+        @Label("Request Cache Key")
+        String requestCacheKey;
+
+        @Label("Hit")
+        boolean hit;
+
+    }
+
+}
@@ -0,0 +1,77 @@
+package com.github.mati1979.play.hysterix.registry;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntFunction;
+
+/**
+ * Growable array of per command values indexed by command index from HysterixCommandRegistry.
+ * Reads are lock free, values are created and array is grown under a lock, once set a value never changes.
+ */
+public final class HysterixCommandArray<V> {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private volatile AtomicReferenceArray<V> values = new AtomicReferenceArray<>(INITIAL_CAPACITY);
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    public V get(final int index) {
+        final AtomicReferenceArray<V> current = values;
+
+        return index < current.length() ? current.get(index) : null;
+    }
+
+    public V computeIfAbsent(final int index, final IntFunction<V> factory) {
+        final V value = get(index);
+        if (value != null) {
+            return value;
+        }
+
+        lock.lock();
+        try {
+            AtomicReferenceArray<V> current = values;
+            if (index >= current.length()) {
+                current = grow(current, index);
+            }
+            V created = current.get(index);
+            if (created == null) {
+                created = factory.apply(index);
+                current.set(index, created);
+            }
+
+            return created;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    //values in index order
+    public Collection<V> values() {
+        final AtomicReferenceArray<V> current = values;
+        final List<V> result = new ArrayList<>(current.length());
+        for (int i = 0; i < current.length(); i++) {
+            final V value = current.get(i);
+            if (value != null) {
+                result.add(value);
+            }
+        }
+
+        return Collections.unmodifiableList(result);
+    }
+
+    private AtomicReferenceArray<V> grow(final AtomicReferenceArray<V> current, final int index) {
+        final AtomicReferenceArray<V> grown = new AtomicReferenceArray<>(Math.max(index + 1, current.length() * 2));
+        for (int i = 0; i < current.length(); i++) {
+            grown.set(i, current.get(i));
+        }
+        values = grown;
+
+        return grown;
+    }
+
+}
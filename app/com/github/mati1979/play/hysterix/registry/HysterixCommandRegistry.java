@@ -0,0 +1,64 @@
+package com.github.mati1979.play.hysterix.registry;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Assigns every command (command group key + command key) a small, dense index on first registration,
+ * per command state (circuit breakers, statistics) is then kept in HysterixCommandArray-s and looked up by that index.
+ */
+public class HysterixCommandRegistry {
+
+    private final Map<String, Map<String, Integer>> indexes = new ConcurrentHashMap<>();
+
+    private final HysterixCommandArray<String[]> keys = new HysterixCommandArray<>();
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private volatile int size = 0;
+
+    public int register(final String commandGroupKey, final String commandKey) {
+        Map<String, Integer> groupIndexes = indexes.get(commandGroupKey);
+        if (groupIndexes == null) {
+            groupIndexes = indexes.computeIfAbsent(commandGroupKey, k -> new ConcurrentHashMap<>());
+        }
+        final Integer index = groupIndexes.get(commandKey);
+        if (index != null) {
+            return index;
+        }
+
+        lock.lock();
+        try {
+            final Integer registered = groupIndexes.get(commandKey);
+            if (registered != null) {
+                return registered;
+            }
+            final int newIndex = size;
+            keys.computeIfAbsent(newIndex, i -> new String[] {commandGroupKey, commandKey});
+            groupIndexes.put(commandKey, newIndex);
+            size = newIndex + 1;
+
+            return newIndex;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public String getCommandGroupKey(final int index) {
+        return keys.get(index)[0];
+    }
+
+    public String getCommandKey(final int index) {
+        return keys.get(index)[1];
+    }
+
+    public String getKey(final int index) {
+        return String.format("%s.%s", getCommandGroupKey(index), getCommandKey(index));
+    }
+
+    public int size() {
+        return size;
+    }
+
+}
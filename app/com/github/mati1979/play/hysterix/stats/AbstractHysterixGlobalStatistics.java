@@ -1,55 +1,53 @@
 package com.github.mati1979.play.hysterix.stats;
 
 import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Reservoir;
+import com.codahale.metrics.Snapshot;
 import com.github.mati1979.play.hysterix.HysterixResponseMetadata;
 import com.github.mati1979.play.hysterix.HysterixSettings;
 
+import java.util.Arrays;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.LongStream;
 
 /**
  * Created by mati on 28/06/2014.
  */
 public abstract class AbstractHysterixGlobalStatistics implements HysterixGlobalStatistics {
 
+    /* stands in for latency breakdown distributions not kept by statistics, see isLatencyBreakdownKept */
+    private static final Histogram NOT_KEPT = new Histogram(new Reservoir() {
+        @Override
+        public int size() {
+            return 0;
+        }
+
+        @Override
+        public void update(final long value) {
+        }
+
+        @Override
+        public Snapshot getSnapshot() {
+            return new Snapshot(new long[0]);
+        }
+    });
+
     protected final HysterixSettings hysterixSettings;
     protected final String key;
 
-    protected Histogram countFailure;
-    protected Histogram countResponsesFromCache;
-    protected Histogram countFallbackSuccess;
-    protected Histogram countFallbackFailure;
-    protected Histogram countShortCircuited;
-    protected Histogram countExceptionsThrown;
-    protected Histogram countSuccess;
-    protected Histogram countTimeout;
-
-    protected Histogram averageExecutionTime;
+    //all histograms are replaced together by clearStats, readers and writers take the reference once so they never see a mix
+    protected volatile Histograms histograms;
 
     protected AbstractHysterixGlobalStatistics(final HysterixSettings hysterixSettings, final String key) {
         this.hysterixSettings = hysterixSettings;
         this.key = key;
-        countFailure = createHistogram();
-        countResponsesFromCache = createHistogram();
-        countFallbackSuccess = createHistogram();
-        countFallbackFailure = createHistogram();
-        countShortCircuited = createHistogram();
-        countExceptionsThrown = createHistogram();
-        countSuccess = createHistogram();
-        countTimeout = createHistogram();
-        averageExecutionTime = createHistogram();
+        this.histograms = new Histograms(this::createHistogram, isLatencyBreakdownKept());
     }
 
     @Override
     public void clearStats() {
-        countFailure = createHistogram();
-        countResponsesFromCache = createHistogram();
-        countFallbackSuccess = createHistogram();
-        countFallbackFailure = createHistogram();
-        countShortCircuited = createHistogram();
-        countExceptionsThrown = createHistogram();
-        countSuccess = createHistogram();
-        countTimeout = createHistogram();
-        averageExecutionTime = createHistogram();
+        histograms = new Histograms(this::createHistogram, isLatencyBreakdownKept());
     }
 
     @Override
@@ -58,31 +56,104 @@ public abstract class AbstractHysterixGlobalStatistics implements HysterixGlobal
     }
 
     public void notify(final HysterixResponseMetadata metadata) {
+        record(metadata, histograms);
+    }
+
+    //what one completed command adds to statistics, shared with HysterixStatisticsBuffer which merges it into histograms later
+    static void record(final HysterixResponseMetadata metadata, final Recorder recorder) {
         if (metadata.isSuccessfulExecution()) {
-            countSuccess.update(1);
+            recorder.count(Histograms.SUCCESS);
+        }
+        if (metadata.isSlowCall()) {
+            recorder.count(Histograms.SLOW_CALL);
         }
         if (metadata.isFailedExecution()) {
-            countFailure.update(1);
+            recorder.count(Histograms.FAILURE);
         }
         if (metadata.isResponseTimeout()) {
-            countTimeout.update(1);
+            recorder.count(Histograms.TIMEOUT);
         }
         if (metadata.isFallbackSuccess()) {
-            countFallbackSuccess.update(1);
+            recorder.count(Histograms.FALLBACK_SUCCESS);
         }
         if (metadata.isFallbackFailed()) {
-            countFallbackFailure.update(1);
+            recorder.count(Histograms.FALLBACK_FAILURE);
+        }
+        if (metadata.isFallbackRejected()) {
+            recorder.count(Histograms.FALLBACK_REJECTION);
         }
         if (metadata.isExceptionThrown()) {
-            countExceptionsThrown.update(1);
+            recorder.count(Histograms.EXCEPTIONS_THROWN);
         }
         if (metadata.isResponseFromCache()) {
-            countResponsesFromCache.update(1);
+            recorder.count(Histograms.RESPONSES_FROM_CACHE);
+        }
+        if (metadata.isResponseStale()) {
+            recorder.count(Histograms.RESPONSES_STALE);
+        }
+        if (metadata.isResponseCoalesced()) {
+            recorder.count(Histograms.RESPONSES_COALESCED);
+        }
+        //caused by group circuit, counting it here would trip command circuits of healthy commands
+        if (metadata.isShortCircuited() && !metadata.isShortCircuitedByGroup()) {
+            recorder.count(Histograms.SHORT_CIRCUITED);
+        }
+        if (metadata.isDeadlineExceeded()) {
+            recorder.count(Histograms.DEADLINE_EXCEEDED);
         }
-        if (metadata.isShortCircuited()) {
-            countShortCircuited.update(1);
+        if (metadata.isLoadShed()) {
+            recorder.count(Histograms.LOAD_SHED);
+        }
+        if (metadata.isRateLimited()) {
+            recorder.count(Histograms.RATE_LIMITED);
+        }
+        if (metadata.isSemaphoreRejected()) {
+            recorder.count(Histograms.SEMAPHORE_REJECTED);
+        }
+        if (metadata.isThreadPoolRejected()) {
+            recorder.count(Histograms.THREAD_POOL_REJECTED);
+        }
+        recorder.sample(Histograms.EXECUTION_TIME, metadata.getExecutionTime(TimeUnit.MILLISECONDS));
+        if (!recorder.isLatencyBreakdownKept()) {
+            return;
+        }
+        for (final HysterixOutcomeLatency outcome : HysterixOutcomeLatency.values()) {
+            outcome.get(metadata, TimeUnit.MILLISECONDS).ifPresent(ms -> recorder.sample(Histograms.OUTCOME_LATENCY + outcome.ordinal(), ms));
+        }
+        metadata.getRemainingBudget(TimeUnit.MILLISECONDS).ifPresent(remainingBudgetMs -> recorder.sample(Histograms.REMAINING_BUDGET, remainingBudgetMs));
+        for (final HysterixPhaseLatency phase : HysterixPhaseLatency.values()) {
+            phase.get(metadata, TimeUnit.MICROSECONDS).ifPresent(micros -> recorder.sample(Histograms.PHASE_LATENCY + phase.ordinal(), micros));
         }
-        averageExecutionTime.update(metadata.getExecutionTime(TimeUnit.MILLISECONDS));
+    }
+
+    @Override
+    public HysterixStatisticsSnapshot getSnapshot() {
+        final Histograms histograms = this.histograms;
+        final long responsesFromCacheCount = count(histograms.countResponsesFromCache);
+        final Snapshot[] outcomeLatency = Arrays.stream(histograms.outcomeLatency).map(Histogram::getSnapshot).toArray(Snapshot[]::new);
+
+        return new HysterixStatisticsSnapshot(count(histograms.countSuccess),
+                count(histograms.countSlowCall),
+                count(histograms.countFailure),
+                count(histograms.countTimeout),
+                count(histograms.countFallbackSuccess),
+                count(histograms.countFallbackFailure),
+                count(histograms.countFallbackRejection),
+                count(histograms.countExceptionsThrown),
+                responsesFromCacheCount,
+                count(histograms.countResponsesStale),
+                count(histograms.countResponsesCoalesced),
+                count(histograms.countShortCircuited),
+                count(histograms.countDeadlineExceeded),
+                count(histograms.countLoadShed),
+                count(histograms.countRateLimited),
+                count(histograms.countSemaphoreRejected),
+                count(histograms.countThreadPoolRejected),
+                histograms.averageExecutionTime.getSnapshot(),
+                remoteExecutionTime(outcomeLatency),
+                outcomeLatency,
+                histograms.remainingBudget.getSnapshot(),
+                Arrays.stream(histograms.phaseLatency).map(Histogram::getSnapshot).toArray(Snapshot[]::new));
     }
 
     @Override
@@ -97,85 +168,345 @@ public abstract class AbstractHysterixGlobalStatistics implements HysterixGlobal
 
     @Override
     public long getSuccessWithoutRequestCacheCount() {
-        return getSuccessCount() - getResponsesFromCacheCount();
+        return successWithoutRequestCacheCount(histograms);
     }
 
     @Override
     public long getShortCircuitedCount() {
-        return countShortCircuited.getSnapshot().size();
+        return count(histograms.countShortCircuited);
     }
 
     @Override
     public long getSuccessCount() {
-        return countSuccess.getSnapshot().size();
+        return count(histograms.countSuccess);
+    }
+
+    @Override
+    public long getSlowCallCount() {
+        return count(histograms.countSlowCall);
     }
 
     @Override
     public long getFailureCount() {
-        return countFailure.getSnapshot().size();
+        return count(histograms.countFailure);
     }
 
     @Override
     public long getResponsesFromCacheCount() {
-        return countResponsesFromCache.getSnapshot().size();
+        return count(histograms.countResponsesFromCache);
+    }
+
+    @Override
+    public long getResponsesStaleCount() {
+        return count(histograms.countResponsesStale);
+    }
+
+    @Override
+    public long getResponsesCoalescedCount() {
+        return count(histograms.countResponsesCoalesced);
     }
 
     @Override
     public long getFallbackSuccessCount() {
-        return countFallbackSuccess.getSnapshot().size();
+        return count(histograms.countFallbackSuccess);
     }
 
     @Override
     public long getFallbackFailureCount() {
-        return countFallbackFailure.getSnapshot().size();
+        return count(histograms.countFallbackFailure);
+    }
+
+    @Override
+    public long getFallbackRejectionCount() {
+        return count(histograms.countFallbackRejection);
     }
 
     @Override
     public long getExceptionsThrownCount() {
-        return countExceptionsThrown.getSnapshot().size();
+        return count(histograms.countExceptionsThrown);
     }
 
     @Override
     public long getTimeoutCount() {
-        return countTimeout.getSnapshot().size();
+        return count(histograms.countTimeout);
+    }
+
+    @Override
+    public long getDeadlineExceededCount() {
+        return count(histograms.countDeadlineExceeded);
+    }
+
+    @Override
+    public long getLoadShedCount() {
+        return count(histograms.countLoadShed);
+    }
+
+    @Override
+    public long getRateLimitedCount() {
+        return count(histograms.countRateLimited);
+    }
+
+    @Override
+    public long getSemaphoreRejectedCount() {
+        return count(histograms.countSemaphoreRejected);
+    }
+
+    @Override
+    public long getThreadPoolRejectedCount() {
+        return count(histograms.countThreadPoolRejected);
     }
 
     @Override
     public int getErrorPercentage() {
-        int errorPercentage = 0;
+        //each count is read once, error count taken at a different moment than total count could exceed it
+        final Histograms histograms = this.histograms;
+        final long errorCount = errorCount(histograms);
+        final long totalCount = successWithoutRequestCacheCount(histograms) + errorCount;
 
-        if (getTotalCount() > 0) {
-            errorPercentage = (int) ((double) getErrorCount() / getTotalCount() * 100);
-        }
+        return totalCount > 0 ? (int) ((double) errorCount / totalCount * 100) : 0;
+    }
+
+    @Override
+    public int getSlowCallPercentage() {
+        final Histograms histograms = this.histograms;
+        final long slowCallCount = count(histograms.countSlowCall);
+        final long totalCount = successWithoutRequestCacheCount(histograms) + errorCount(histograms);
 
-        return errorPercentage;
+        return totalCount > 0 ? (int) ((double) slowCallCount / totalCount * 100) : 0;
     }
 
     @Override
     public long getAverageExecutionTime() {
-        return Math.round(averageExecutionTime.getSnapshot().getMean());
+        return Math.round(histograms.averageExecutionTime.getSnapshot().getMean());
     }
 
     @Override
     public long getAverageExecutionTimePercentile(final double quantile) {
-        return Math.round(averageExecutionTime.getSnapshot().getValue(quantile));
+        return Math.round(histograms.averageExecutionTime.getSnapshot().getValue(quantile));
+    }
+
+    @Override
+    public long getAverageRemoteExecutionTime() {
+        return Math.round(remoteExecutionTime(histograms).getMean());
+    }
+
+    @Override
+    public long getRemoteExecutionTimePercentile(final double quantile) {
+        return Math.round(remoteExecutionTime(histograms).getValue(quantile));
+    }
+
+    @Override
+    public long getAverageOutcomeLatency(final HysterixOutcomeLatency outcome) {
+        return Math.round(histograms.outcomeLatency[outcome.ordinal()].getSnapshot().getMean());
+    }
+
+    @Override
+    public long getOutcomeLatencyPercentile(final HysterixOutcomeLatency outcome, final double quantile) {
+        return Math.round(histograms.outcomeLatency[outcome.ordinal()].getSnapshot().getValue(quantile));
+    }
+
+    //distribution of request deadline budget left when commands started, only commands of requests with a deadline
+    @Override
+    public long getAverageRemainingBudget() {
+        return Math.round(histograms.remainingBudget.getSnapshot().getMean());
+    }
+
+    @Override
+    public long getRemainingBudgetPercentile(final double quantile) {
+        return Math.round(histograms.remainingBudget.getSnapshot().getValue(quantile));
+    }
+
+    @Override
+    public long getAveragePhaseLatencyMicros(final HysterixPhaseLatency phase) {
+        return Math.round(histograms.phaseLatency[phase.ordinal()].getSnapshot().getMean());
+    }
+
+    @Override
+    public long getPhaseLatencyMicrosPercentile(final HysterixPhaseLatency phase, final double quantile) {
+        return Math.round(histograms.phaseLatency[phase.ordinal()].getSnapshot().getValue(quantile));
+    }
+
+    //notify records success before cache hit, reading them in reverse order never counts a cache hit without its success
+    private static long successWithoutRequestCacheCount(final Histograms histograms) {
+        final long responsesFromCacheCount = count(histograms.countResponsesFromCache);
+
+        return Math.max(0, count(histograms.countSuccess) - responsesFromCacheCount);
+    }
+
+    private static long errorCount(final Histograms histograms) {
+        return count(histograms.countFailure) + count(histograms.countTimeout) + count(histograms.countExceptionsThrown) + count(histograms.countShortCircuited);
+    }
+
+    private static long count(final Histogram histogram) {
+        return histogram.getSnapshot().size();
+    }
+
+    private static Snapshot remoteExecutionTime(final Histograms histograms) {
+        return remoteExecutionTime(histograms.outcomeLatency[HysterixOutcomeLatency.REMOTE_SUCCESS.ordinal()].getSnapshot(),
+                histograms.outcomeLatency[HysterixOutcomeLatency.REMOTE_FAILURE.ordinal()].getSnapshot());
+    }
+
+    private static Snapshot remoteExecutionTime(final Snapshot[] outcomeLatency) {
+        return remoteExecutionTime(outcomeLatency[HysterixOutcomeLatency.REMOTE_SUCCESS.ordinal()],
+                outcomeLatency[HysterixOutcomeLatency.REMOTE_FAILURE.ordinal()]);
+    }
+
+    //every remote call is either a remote success or a remote failure, so both together make up all remote calls
+    private static Snapshot remoteExecutionTime(final Snapshot remoteSuccess, final Snapshot remoteFailure) {
+        return new Snapshot(LongStream.concat(Arrays.stream(remoteSuccess.getValues()), Arrays.stream(remoteFailure.getValues())).toArray());
     }
 
     protected abstract Histogram createHistogram();
 
+    /**
+     * Whether outcome, remaining budget and phase latency distributions are kept, counts and end-to-end execution time
+     * are always kept. Not kept distributions read as empty.
+     */
+    protected abstract boolean isLatencyBreakdownKept();
+
+    //receives counts and latency samples of a completed command, see record
+    interface Recorder {
+
+        void count(int counter);
+
+        void sample(int distribution, long value);
+
+        //false when only EXECUTION_TIME is sampled
+        boolean isLatencyBreakdownKept();
+
+    }
+
+    protected static final class Histograms implements Recorder {
+
+        //counter indexes
+        static final int SUCCESS = 0;
+        static final int SLOW_CALL = 1;
+        static final int FAILURE = 2;
+        static final int TIMEOUT = 3;
+        static final int FALLBACK_SUCCESS = 4;
+        static final int FALLBACK_FAILURE = 5;
+        static final int FALLBACK_REJECTION = 6;
+        static final int EXCEPTIONS_THROWN = 7;
+        static final int RESPONSES_FROM_CACHE = 8;
+        static final int RESPONSES_STALE = 9;
+        static final int RESPONSES_COALESCED = 10;
+        static final int SHORT_CIRCUITED = 11;
+        static final int DEADLINE_EXCEEDED = 12;
+        static final int LOAD_SHED = 13;
+        static final int RATE_LIMITED = 14;
+        static final int SEMAPHORE_REJECTED = 15;
+        static final int THREAD_POOL_REJECTED = 16;
+        static final int COUNTERS = 17;
+
+        //distribution indexes, outcome and phase latencies take one index per enum constant
+        static final int EXECUTION_TIME = 0;
+        static final int OUTCOME_LATENCY = 1;
+        static final int REMAINING_BUDGET = OUTCOME_LATENCY + HysterixOutcomeLatency.values().length;
+        static final int PHASE_LATENCY = REMAINING_BUDGET + 1;
+        static final int DISTRIBUTIONS = PHASE_LATENCY + HysterixPhaseLatency.values().length;
+
+        private final Histogram[] counters = new Histogram[COUNTERS];
+        private final Histogram[] distributions = new Histogram[DISTRIBUTIONS];
+
+        protected final Histogram countFailure;
+        protected final Histogram countResponsesFromCache;
+        protected final Histogram countResponsesStale;
+        protected final Histogram countResponsesCoalesced;
+        protected final Histogram countFallbackSuccess;
+        protected final Histogram countFallbackFailure;
+        protected final Histogram countFallbackRejection;
+        protected final Histogram countShortCircuited;
+        protected final Histogram countDeadlineExceeded;
+        protected final Histogram countExceptionsThrown;
+        protected final Histogram countSuccess;
+        protected final Histogram countSlowCall;
+        protected final Histogram countTimeout;
+        protected final Histogram countLoadShed;
+        protected final Histogram countRateLimited;
+        protected final Histogram countSemaphoreRejected;
+        protected final Histogram countThreadPoolRejected;
+
+        protected final Histogram averageExecutionTime; //end-to-end
+        protected final Histogram[] outcomeLatency; //milliseconds, indexed by HysterixOutcomeLatency ordinal
+        protected final Histogram remainingBudget;
+        protected final Histogram[] phaseLatency; //microseconds, indexed by HysterixPhaseLatency ordinal
+
+        private final boolean latencyBreakdownKept;
+
+        private Histograms(final Supplier<Histogram> factory, final boolean latencyBreakdownKept) {
+            this.latencyBreakdownKept = latencyBreakdownKept;
+            for (int i = 0; i < counters.length; i++) {
+                counters[i] = factory.get();
+            }
+            distributions[EXECUTION_TIME] = factory.get();
+            for (int i = EXECUTION_TIME + 1; i < distributions.length; i++) {
+                distributions[i] = latencyBreakdownKept ? factory.get() : NOT_KEPT;
+            }
+            countFailure = counters[FAILURE];
+            countResponsesFromCache = counters[RESPONSES_FROM_CACHE];
+            countResponsesStale = counters[RESPONSES_STALE];
+            countResponsesCoalesced = counters[RESPONSES_COALESCED];
+            countFallbackSuccess = counters[FALLBACK_SUCCESS];
+            countFallbackFailure = counters[FALLBACK_FAILURE];
+            countFallbackRejection = counters[FALLBACK_REJECTION];
+            countShortCircuited = counters[SHORT_CIRCUITED];
+            countDeadlineExceeded = counters[DEADLINE_EXCEEDED];
+            countExceptionsThrown = counters[EXCEPTIONS_THROWN];
+            countSuccess = counters[SUCCESS];
+            countSlowCall = counters[SLOW_CALL];
+            countTimeout = counters[TIMEOUT];
+            countLoadShed = counters[LOAD_SHED];
+            countRateLimited = counters[RATE_LIMITED];
+            countSemaphoreRejected = counters[SEMAPHORE_REJECTED];
+            countThreadPoolRejected = counters[THREAD_POOL_REJECTED];
+            averageExecutionTime = distributions[EXECUTION_TIME];
+            outcomeLatency = Arrays.copyOfRange(distributions, OUTCOME_LATENCY, REMAINING_BUDGET);
+            remainingBudget = distributions[REMAINING_BUDGET];
+            phaseLatency = Arrays.copyOfRange(distributions, PHASE_LATENCY, DISTRIBUTIONS);
+        }
+
+        @Override
+        public void count(final int counter) {
+            counters[counter].update(1);
+        }
+
+        @Override
+        public void sample(final int distribution, final long value) {
+            distributions[distribution].update(value);
+        }
+
+        @Override
+        public boolean isLatencyBreakdownKept() {
+            return latencyBreakdownKept;
+        }
+
+    }
+
     @Override
     public String toString() {
         return "HysterixGlobalStatistics{" +
                 "hysterixSettings=" + hysterixSettings +
                 ", key='" + key + '\'' +
-                ", countFailure=" + countFailure +
-                ", countResponsesFromCache=" + countResponsesFromCache +
-                ", countFallbackSuccess=" + countFallbackSuccess +
-                ", countFallbackFailure=" + countFallbackFailure +
-                ", countExceptionsThrown=" + countExceptionsThrown +
-                ", countSuccess=" + countSuccess +
-                ", countTimeout=" + countTimeout +
-                ", averageExecutionTime=" + averageExecutionTime +
+                ", countFailure=" + histograms.countFailure +
+                ", countResponsesFromCache=" + histograms.countResponsesFromCache +
+                ", countResponsesStale=" + histograms.countResponsesStale +
+                ", countResponsesCoalesced=" + histograms.countResponsesCoalesced +
+                ", countFallbackSuccess=" + histograms.countFallbackSuccess +
+                ", countFallbackFailure=" + histograms.countFallbackFailure +
+                ", countFallbackRejection=" + histograms.countFallbackRejection +
+                ", countExceptionsThrown=" + histograms.countExceptionsThrown +
+                ", countSuccess=" + histograms.countSuccess +
+                ", countSlowCall=" + histograms.countSlowCall +
+                ", countTimeout=" + histograms.countTimeout +
+                ", countLoadShed=" + histograms.countLoadShed +
+                ", countRateLimited=" + histograms.countRateLimited +
+                ", countSemaphoreRejected=" + histograms.countSemaphoreRejected +
+                ", countThreadPoolRejected=" + histograms.countThreadPoolRejected +
+                ", countDeadlineExceeded=" + histograms.countDeadlineExceeded +
+                ", averageExecutionTime=" + histograms.averageExecutionTime +
+                ", outcomeLatency=" + Arrays.toString(histograms.outcomeLatency) +
+                ", remainingBudget=" + histograms.remainingBudget +
+                ", phaseLatency=" + Arrays.toString(histograms.phaseLatency) +
                 '}';
     }
 
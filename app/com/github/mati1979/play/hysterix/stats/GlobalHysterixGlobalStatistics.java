@@ -17,4 +17,8 @@ public class GlobalHysterixGlobalStatistics extends AbstractHysterixGlobalStatis
         return new Histogram(new ExponentiallyDecayingReservoir());
     }
 
+    protected boolean isLatencyBreakdownKept() {
+        return true;
+    }
+
 }
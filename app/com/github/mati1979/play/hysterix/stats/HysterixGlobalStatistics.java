@@ -11,6 +11,8 @@ public interface HysterixGlobalStatistics {
 
     String getKey();
 
+    HysterixStatisticsSnapshot getSnapshot();
+
     long getErrorCount();
 
     long getTotalCount();
@@ -21,24 +23,60 @@ public interface HysterixGlobalStatistics {
 
     long getSuccessCount();
 
+    long getSlowCallCount();
+
     long getFailureCount();
 
     long getResponsesFromCacheCount();
 
+    long getResponsesStaleCount();
+
+    long getResponsesCoalescedCount();
+
     long getFallbackSuccessCount();
 
     long getFallbackFailureCount();
 
+    long getFallbackRejectionCount();
+
     long getExceptionsThrownCount();
 
     long getTimeoutCount();
 
+    long getDeadlineExceededCount();
+
+    long getLoadShedCount();
+
+    long getRateLimitedCount();
+
+    long getSemaphoreRejectedCount();
+
+    long getThreadPoolRejectedCount();
+
     int getErrorPercentage();
 
+    int getSlowCallPercentage();
+
     long getAverageExecutionTime();
 
     long getAverageExecutionTimePercentile(double quantile);
 
+    long getAverageRemainingBudget();
+
+    long getRemainingBudgetPercentile(double quantile);
+
+    long getAverageRemoteExecutionTime();
+
+    long getRemoteExecutionTimePercentile(double quantile);
+
+    long getAverageOutcomeLatency(HysterixOutcomeLatency outcome);
+
+    long getOutcomeLatencyPercentile(HysterixOutcomeLatency outcome, double quantile);
+
+    long getAveragePhaseLatencyMicros(HysterixPhaseLatency phase);
+
+    long getPhaseLatencyMicrosPercentile(HysterixPhaseLatency phase, double quantile);
+
     void notify(HysterixResponseMetadata metadata);
 
 }
@@ -1,15 +1,19 @@
 package com.github.mati1979.play.hysterix.stats;
 
 import com.github.mati1979.play.hysterix.HysterixCommand;
+import com.github.mati1979.play.hysterix.HysterixResponseMetadata;
 import com.github.mati1979.play.hysterix.HysterixSettings;
 import com.github.mati1979.play.hysterix.event.HysterixCommandEvent;
 import com.github.mati1979.play.hysterix.event.HysterixStatisticsEvent;
+import com.github.mati1979.play.hysterix.registry.HysterixCommandArray;
+import com.github.mati1979.play.hysterix.registry.HysterixCommandRegistry;
 import com.google.common.eventbus.EventBus;
 import com.google.common.eventbus.Subscribe;
 
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Map;
+import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
@@ -17,47 +21,113 @@ import java.util.concurrent.ConcurrentHashMap;
  */
 public class HysterixGlobalStatisticsHolder {
 
-    private final Map<String, RollingHysterixGlobalStatistics> rollingCache = new ConcurrentHashMap<>();
-    private final Map<String, GlobalHysterixGlobalStatistics> globalCache = new ConcurrentHashMap<>();
+    private final HysterixCommandArray<RollingHysterixGlobalStatistics> rollingCache = new HysterixCommandArray<>();
+    private final HysterixCommandArray<GlobalHysterixGlobalStatistics> globalCache = new HysterixCommandArray<>();
+    private final Map<String, RollingHysterixGlobalStatistics> rollingGroupCache = new ConcurrentHashMap<>();
 
+    private final HysterixCommandRegistry hysterixCommandRegistry;
     private final HysterixSettings hysterixSettings;
     private final EventBus eventBus;
+    private final Optional<HysterixStatisticsBuffer> hysterixStatisticsBuffer;
+    private final Optional<HysterixStatisticsHistory> hysterixStatisticsHistory;
 
     public HysterixGlobalStatisticsHolder(final HysterixSettings hysterixSettings,
                                           final EventBus eventBus) {
+        this(new HysterixCommandRegistry(), hysterixSettings, eventBus);
+    }
+
+    public HysterixGlobalStatisticsHolder(final HysterixCommandRegistry hysterixCommandRegistry,
+                                          final HysterixSettings hysterixSettings,
+                                          final EventBus eventBus) {
+        this.hysterixCommandRegistry = hysterixCommandRegistry;
         this.hysterixSettings = hysterixSettings;
         this.eventBus = eventBus;
+        this.hysterixStatisticsBuffer = hysterixSettings.isStatisticsBufferEnabled()
+                ? Optional.of(new HysterixStatisticsBuffer(hysterixSettings.getStatisticsBufferFlushIntervalMs()))
+                : Optional.empty();
+        this.hysterixStatisticsHistory = hysterixSettings.isStatisticsHistoryEnabled()
+                ? Optional.of(new HysterixStatisticsHistory(hysterixSettings.getStatisticsHistorySeconds()))
+                : Optional.empty();
         eventBus.register(new Subscriber());
     }
 
+    public HysterixCommandRegistry getHysterixCommandRegistry() {
+        return hysterixCommandRegistry;
+    }
+
     public RollingHysterixGlobalStatistics getTimeWindowedMetrics(final HysterixCommand hysterixCommand) {
-        return getTimeWindowedMetrics((String) hysterixCommand.getCommandGroupKey().orElse(""), hysterixCommand.getCommandKey());
+        return getTimeWindowedMetrics(hysterixCommand.getCommandIndex());
     }
 
     public RollingHysterixGlobalStatistics getTimeWindowedMetrics(final String commandGroupKey, final String commandKey) {
-        final String key = String.format("%s.%s", commandGroupKey, commandKey);
+        return getTimeWindowedMetrics(hysterixCommandRegistry.register(commandGroupKey, commandKey));
+    }
+
+    public RollingHysterixGlobalStatistics getTimeWindowedMetrics(final int commandIndex) {
+        final RollingHysterixGlobalStatistics stats = rollingCache.get(commandIndex);
+        if (stats != null) {
+            return stats;
+        }
 
-        return rollingCache.computeIfAbsent(key, k -> new RollingHysterixGlobalStatistics(hysterixSettings, k));
+        return rollingCache.computeIfAbsent(commandIndex, i -> new RollingHysterixGlobalStatistics(hysterixSettings, hysterixCommandRegistry.getKey(i)));
     }
 
     public GlobalHysterixGlobalStatistics getGlobalMetrics(final HysterixCommand hysterixCommand) {
-        final String commandGroupKey = (String) hysterixCommand.getCommandGroupKey().orElse("");
-
-        return getGlobalMetrics(commandGroupKey, hysterixCommand.getCommandKey());
+        return getGlobalMetrics(hysterixCommand.getCommandIndex());
     }
 
     public GlobalHysterixGlobalStatistics getGlobalMetrics(final String commandGroupKey, final String commandKey) {
-        final String key = String.format("%s.%s", commandGroupKey, commandKey);
+        return getGlobalMetrics(hysterixCommandRegistry.register(commandGroupKey, commandKey));
+    }
+
+    public GlobalHysterixGlobalStatistics getGlobalMetrics(final int commandIndex) {
+        final GlobalHysterixGlobalStatistics stats = globalCache.get(commandIndex);
+        if (stats != null) {
+            return stats;
+        }
+
+        return globalCache.computeIfAbsent(commandIndex, i -> new GlobalHysterixGlobalStatistics(hysterixSettings, hysterixCommandRegistry.getKey(i)));
+    }
 
-        return globalCache.computeIfAbsent(key, k -> new GlobalHysterixGlobalStatistics(hysterixSettings, k));
+    //rolling aggregate of all commands in a group, updated on every command event so reads do not sum per command stats
+    public RollingHysterixGlobalStatistics getGroupTimeWindowedMetrics(final String commandGroupKey) {
+        return rollingGroupCache.computeIfAbsent(commandGroupKey, k -> new RollingHysterixGlobalStatistics(hysterixSettings, k));
+    }
+
+    public Collection<RollingHysterixGlobalStatistics> getAllGroupTimeWindowed() {
+        return Collections.unmodifiableCollection(rollingGroupCache.values());
+    }
+
+    public Optional<HysterixStatisticsHistory> getStatisticsHistory() {
+        return hysterixStatisticsHistory;
+    }
+
+    //merges thread local buffers into statistics, only needed when statisticsBufferEnabled and exact numbers are required
+    public void flushStatistics() {
+        hysterixStatisticsBuffer.ifPresent(HysterixStatisticsBuffer::flush);
+    }
+
+    public void shutdown() {
+        flushStatistics();
+        hysterixStatisticsBuffer.ifPresent(HysterixStatisticsBuffer::shutdown);
+        hysterixStatisticsHistory.ifPresent(HysterixStatisticsHistory::shutdown);
+    }
+
+    private void record(final AbstractHysterixGlobalStatistics statistics, final HysterixResponseMetadata metadata) {
+        if (hysterixStatisticsBuffer.isPresent()) {
+            hysterixStatisticsBuffer.get().record(statistics, metadata);
+            return;
+        }
+
+        statistics.notify(metadata);
     }
 
     public Collection<RollingHysterixGlobalStatistics> getAllTimeWindowed() {
-        return Collections.unmodifiableCollection(rollingCache.values());
+        return rollingCache.values();
     }
 
     public Collection<GlobalHysterixGlobalStatistics> getAllGlobal() {
-        return Collections.unmodifiableCollection(globalCache.values());
+        return globalCache.values();
     }
 
     private final class Subscriber {
@@ -68,11 +138,21 @@ public class HysterixGlobalStatisticsHolder {
             final RollingHysterixGlobalStatistics timeWindowedStats = getTimeWindowedMetrics(hysterixCommand);
             final GlobalHysterixGlobalStatistics globalStats = getGlobalMetrics(hysterixCommand);
             if (hysterixSettings.isLogGlobalStatistics()) {
-                timeWindowedStats.notify(event.getHysterixCommand().getMetadata());
-                globalStats.notify(event.getHysterixCommand().getMetadata());
+                final HysterixResponseMetadata metadata = hysterixCommand.getMetadata();
+                record(timeWindowedStats, metadata);
+                record(globalStats, metadata);
+                //a short-circuited call never reached the dependency, counted as group error it would let one command
+                //short-circuited by its own circuit trip group circuit for all commands of the group
+                final Optional<String> commandGroupKey = hysterixCommand.getCommandGroupKey();
+                if (!metadata.isShortCircuited()) {
+                    commandGroupKey.ifPresent(groupKey -> record(getGroupTimeWindowedMetrics(groupKey), metadata));
+                }
+                hysterixStatisticsHistory.ifPresent(history -> history.record(hysterixCommand.getCommandIndex(), metadata));
             }
 
-            eventBus.post(new HysterixStatisticsEvent(event, timeWindowedStats, globalStats));
+            if (event.isSampled()) {
+                eventBus.post(new HysterixStatisticsEvent(event, timeWindowedStats, globalStats));
+            }
         }
 
     }
@@ -0,0 +1,66 @@
+package com.github.mati1979.play.hysterix.stats;
+
+import com.github.mati1979.play.hysterix.HysterixExecutionPhase;
+import com.github.mati1979.play.hysterix.HysterixResponseMetadata;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency segmented by how a command was served, so that request cache hits (microseconds) and short circuits (no remote
+ * call at all) do not make remote latency look good exactly when a dependency is failing. A command which failed remotely
+ * and then served a fallback is recorded in both REMOTE_FAILURE and FALLBACK.
+ */
+public enum HysterixOutcomeLatency {
+
+    //remote call made by this command succeeded, coalesced commands waiting on someone else's call are not included
+    REMOTE_SUCCESS {
+        @Override
+        Optional<Long> get(final HysterixResponseMetadata metadata, final TimeUnit timeUnit) {
+            if (!metadata.isSuccessfulExecution() || metadata.isResponseFromCache()) {
+                return Optional.empty();
+            }
+
+            return remote(metadata, timeUnit);
+        }
+    },
+
+    //remote call made by this command failed or timed out
+    REMOTE_FAILURE {
+        @Override
+        Optional<Long> get(final HysterixResponseMetadata metadata, final TimeUnit timeUnit) {
+            if (metadata.isSuccessfulExecution()) {
+                return Optional.empty();
+            }
+
+            return remote(metadata, timeUnit);
+        }
+    },
+
+    FALLBACK {
+        @Override
+        Optional<Long> get(final HysterixResponseMetadata metadata, final TimeUnit timeUnit) {
+            return metadata.getPhaseDuration(HysterixExecutionPhase.FALLBACK_START, HysterixExecutionPhase.FALLBACK_END, timeUnit);
+        }
+    },
+
+    //end-to-end latency of commands served from request cache
+    CACHE_HIT {
+        @Override
+        Optional<Long> get(final HysterixResponseMetadata metadata, final TimeUnit timeUnit) {
+            if (!metadata.isResponseFromCache()) {
+                return Optional.empty();
+            }
+
+            return Optional.of(metadata.getExecutionTime(timeUnit));
+        }
+    };
+
+    abstract Optional<Long> get(HysterixResponseMetadata metadata, TimeUnit timeUnit);
+
+    //run phase is marked only when this command actually called remote system
+    static Optional<Long> remote(final HysterixResponseMetadata metadata, final TimeUnit timeUnit) {
+        return metadata.getPhaseDuration(HysterixExecutionPhase.RUN_START, HysterixExecutionPhase.RUN_END, timeUnit);
+    }
+
+}
@@ -0,0 +1,52 @@
+package com.github.mati1979.play.hysterix.stats;
+
+import com.github.mati1979.play.hysterix.HysterixExecutionPhase;
+import com.github.mati1979.play.hysterix.HysterixResponseMetadata;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Segments of command execution derived from phase timestamps, allows to tell library and scheduling overhead
+ * (BEFORE_RUN, AFTER_RUN) apart from remote latency (RUN) and fallback latency (FALLBACK).
+ */
+public enum HysterixPhaseLatency {
+
+    //from execute until remote call started, includes circuit breaker check, request cache and thread pool queueing
+    BEFORE_RUN {
+        @Override
+        Optional<Long> get(final HysterixResponseMetadata metadata, final TimeUnit timeUnit) {
+            return metadata.getPhaseDuration(HysterixExecutionPhase.QUEUED, HysterixExecutionPhase.RUN_START, timeUnit);
+        }
+    },
+
+    RUN {
+        @Override
+        Optional<Long> get(final HysterixResponseMetadata metadata, final TimeUnit timeUnit) {
+            return metadata.getPhaseDuration(HysterixExecutionPhase.RUN_START, HysterixExecutionPhase.RUN_END, timeUnit);
+        }
+    },
+
+    FALLBACK {
+        @Override
+        Optional<Long> get(final HysterixResponseMetadata metadata, final TimeUnit timeUnit) {
+            return metadata.getPhaseDuration(HysterixExecutionPhase.FALLBACK_START, HysterixExecutionPhase.FALLBACK_END, timeUnit);
+        }
+    },
+
+    //from end of remote call (or fallback) until completion, mostly callback scheduling
+    AFTER_RUN {
+        @Override
+        Optional<Long> get(final HysterixResponseMetadata metadata, final TimeUnit timeUnit) {
+            final Optional<Long> afterFallback = metadata.getPhaseDuration(HysterixExecutionPhase.FALLBACK_END, HysterixExecutionPhase.COMPLETED, timeUnit);
+            if (afterFallback.isPresent()) {
+                return afterFallback;
+            }
+
+            return metadata.getPhaseDuration(HysterixExecutionPhase.RUN_END, HysterixExecutionPhase.COMPLETED, timeUnit);
+        }
+    };
+
+    abstract Optional<Long> get(HysterixResponseMetadata metadata, TimeUnit timeUnit);
+
+}
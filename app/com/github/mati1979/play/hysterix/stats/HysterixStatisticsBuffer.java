@@ -0,0 +1,207 @@
+package com.github.mati1979.play.hysterix.stats;
+
+import com.github.mati1979.play.hysterix.HysterixResponseMetadata;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.lang.ref.WeakReference;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Optional recording mode for statistics, each thread adds completed commands to its own primitive counters and to a bounded
+ * array of latency samples per statistics and distribution, a background flusher merges them into the statistics every
+ * statisticsBufferFlushIntervalMs.
+ *
+ * A thread completing a command only writes to counters no other thread writes to and nothing is retained per command.
+ * The trade-off is accuracy: statistics (and so circuit breakers) lag behind by up to one flush interval, a sliding time window
+ * sees events at the time of flush rather than completion and if a thread records more than SAMPLES samples of one distribution
+ * within a flush interval (about one per command and distribution) only the latest ones are kept, counts stay exact.
+ * Call flush() to read exact counts, getDroppedSampleCount() tells how many samples were lost.
+ * Events recorded before statistics were cleared (e.g. by a closing circuit) are dropped, they never reach the fresh statistics.
+ */
+public class HysterixStatisticsBuffer {
+
+    /* latency samples kept per thread, statistics and distribution between two flushes, power of two */
+    private static final int SAMPLES = 128;
+
+    private final List<ThreadBuffer> buffers = new CopyOnWriteArrayList<>();
+
+    private final ThreadLocal<ThreadBuffer> threadBuffer = ThreadLocal.withInitial(() -> {
+        final ThreadBuffer buffer = new ThreadBuffer(Thread.currentThread());
+        buffers.add(buffer);
+        return buffer;
+    });
+
+    /* flush is invoked by the flusher and on demand, merged counts are tracked per flush so flushes must not overlap */
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    private final ScheduledExecutorService scheduledExecutorService;
+
+    /* updated by flush only */
+    private final AtomicLong mergedSampleCount = new AtomicLong();
+    private final AtomicLong droppedSampleCount = new AtomicLong();
+
+    public HysterixStatisticsBuffer(final long flushIntervalMs) {
+        this.scheduledExecutorService = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+                .setDaemon(true)
+                .setNameFormat("hysterix-statistics-flusher-%d")
+                .build());
+        scheduledExecutorService.scheduleWithFixedDelay(() -> flush(), flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    public void record(final AbstractHysterixGlobalStatistics statistics, final HysterixResponseMetadata metadata) {
+        AbstractHysterixGlobalStatistics.record(metadata, threadBuffer.get().getAccumulator(statistics));
+    }
+
+    public void flush() {
+        flushLock.lock();
+        try {
+            for (final ThreadBuffer buffer : buffers) {
+                final boolean ownerDead = buffer.isOwnerDead();
+                buffer.flush();
+                if (ownerDead) {
+                    buffers.remove(buffer);
+                }
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    public void shutdown() {
+        scheduledExecutorService.shutdownNow();
+        flush();
+    }
+
+    //samples merged into statistics so far
+    public long getMergedSampleCount() {
+        return mergedSampleCount.get();
+    }
+
+    //samples overwritten before a flush could merge them, see SAMPLES
+    public long getDroppedSampleCount() {
+        return droppedSampleCount.get();
+    }
+
+    private final class ThreadBuffer {
+
+        //accumulators are created by owner thread only, flusher reads them
+        private final Map<AbstractHysterixGlobalStatistics, Accumulator> accumulators = new ConcurrentHashMap<>();
+
+        private final WeakReference<Thread> owner;
+
+        private ThreadBuffer(final Thread owner) {
+            this.owner = new WeakReference<>(owner);
+        }
+
+        private Accumulator getAccumulator(final AbstractHysterixGlobalStatistics statistics) {
+            final AbstractHysterixGlobalStatistics.Histograms histograms = statistics.histograms;
+            final Accumulator accumulator = accumulators.get(statistics);
+            if (accumulator != null && accumulator.histograms == histograms) {
+                return accumulator;
+            }
+
+            //first event of this thread for the statistics or statistics were cleared, events not flushed yet are dropped with the old accumulator
+            final Accumulator created = new Accumulator(histograms);
+            accumulators.put(statistics, created);
+
+            return created;
+        }
+
+        private void flush() {
+            accumulators.forEach((statistics, accumulator) -> {
+                if (statistics.histograms == accumulator.histograms) {
+                    accumulator.flush();
+                } else {
+                    accumulators.remove(statistics, accumulator);
+                }
+            });
+        }
+
+        private boolean isOwnerDead() {
+            final Thread thread = owner.get();
+
+            return thread == null || !thread.isAlive();
+        }
+
+    }
+
+    private final class Accumulator implements AbstractHysterixGlobalStatistics.Recorder {
+
+        /* histograms this accumulator merges into, replaced ones (cleared statistics) are never merged into */
+        private final AbstractHysterixGlobalStatistics.Histograms histograms;
+
+        //single writer (owner thread), lazySet publishes to the flusher without a full fence
+        private final AtomicLongArray counts = new AtomicLongArray(AbstractHysterixGlobalStatistics.Histograms.COUNTERS);
+        //ring per distribution, created on its first sample, most statistics use only a few distributions
+        private final AtomicReferenceArray<AtomicLongArray> samples = new AtomicReferenceArray<>(AbstractHysterixGlobalStatistics.Histograms.DISTRIBUTIONS);
+        private final AtomicLongArray sampleCounts = new AtomicLongArray(AbstractHysterixGlobalStatistics.Histograms.DISTRIBUTIONS);
+
+        //flusher only, what was already merged
+        private final long[] flushedCounts = new long[AbstractHysterixGlobalStatistics.Histograms.COUNTERS];
+        private final long[] flushedSampleCounts = new long[AbstractHysterixGlobalStatistics.Histograms.DISTRIBUTIONS];
+
+        private Accumulator(final AbstractHysterixGlobalStatistics.Histograms histograms) {
+            this.histograms = histograms;
+        }
+
+        @Override
+        public void count(final int counter) {
+            counts.lazySet(counter, counts.get(counter) + 1);
+        }
+
+        @Override
+        public void sample(final int distribution, final long value) {
+            AtomicLongArray ring = samples.get(distribution);
+            if (ring == null) {
+                ring = new AtomicLongArray(SAMPLES);
+                samples.set(distribution, ring);
+            }
+            final long index = sampleCounts.get(distribution);
+            ring.lazySet((int) (index & (SAMPLES - 1)), value);
+            sampleCounts.lazySet(distribution, index + 1);
+        }
+
+        @Override
+        public boolean isLatencyBreakdownKept() {
+            return histograms.isLatencyBreakdownKept();
+        }
+
+        private void flush() {
+            for (int counter = 0; counter < flushedCounts.length; counter++) {
+                final long count = counts.get(counter);
+                for (long i = flushedCounts[counter]; i < count; i++) {
+                    histograms.count(counter);
+                }
+                flushedCounts[counter] = count;
+            }
+
+            //samples overwritten by owner before this flush are lost, only the latest SAMPLES of each distribution are merged
+            for (int distribution = 0; distribution < flushedSampleCounts.length; distribution++) {
+                final long sampleCount = sampleCounts.get(distribution);
+                if (sampleCount == flushedSampleCounts[distribution]) {
+                    continue;
+                }
+                final AtomicLongArray ring = samples.get(distribution);
+                final long first = Math.max(flushedSampleCounts[distribution], sampleCount - SAMPLES);
+                for (long i = first; i < sampleCount; i++) {
+                    histograms.sample(distribution, ring.get((int) (i & (SAMPLES - 1))));
+                }
+                mergedSampleCount.addAndGet(sampleCount - first);
+                droppedSampleCount.addAndGet(first - flushedSampleCounts[distribution]);
+                flushedSampleCounts[distribution] = sampleCount;
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,294 @@
+package com.github.mati1979.play.hysterix.stats;
+
+import com.github.mati1979.play.hysterix.HysterixEventType;
+import com.github.mati1979.play.hysterix.HysterixResponseMetadata;
+import com.github.mati1979.play.hysterix.registry.HysterixCommandArray;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntPredicate;
+
+/**
+ * Fixed size, in-memory history of per second statistics for every command (counts by event type, p50 / p99 latency
+ * and circuit breaker state) for the last statisticsHistorySeconds.
+ *
+ * Completed commands are counted into per command accumulators of the current second, once a second a ticker drains
+ * them into a ring. Everything is kept in primitive arrays, memory per command is fixed and nothing is allocated
+ * per recorded command. Latency percentiles are approximated by upper bounds of fixed latency buckets.
+ */
+public class HysterixStatisticsHistory {
+
+    private static final HysterixEventType[] EVENT_TYPES = HysterixEventType.values();
+
+    //upper bounds in ms, last bucket catches anything slower
+    private static final long[] LATENCY_BUCKETS = { 0, 1, 2, 3, 5, 7, 10, 15, 20, 30, 50, 75, 100, 150, 200, 300, 500, 750,
+            1000, 1500, 2000, 3000, 5000, 7500, 10000, Long.MAX_VALUE };
+
+    private final HysterixCommandArray<CommandHistory> histories = new HysterixCommandArray<>();
+
+    private final int seconds;
+
+    private final ScheduledExecutorService scheduledExecutorService;
+
+    private volatile IntPredicate circuitOpen = commandIndex -> false;
+
+    //ticker only, second the next tick closes, advanced by exactly one per closed second so none is labelled twice or skipped
+    private long nextEpochSecond;
+
+    public HysterixStatisticsHistory(final int seconds) {
+        this(seconds, TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis()));
+        final long delayMs = 1000 - System.currentTimeMillis() % 1000;
+        scheduledExecutorService.scheduleAtFixedRate(() -> tick(System.currentTimeMillis()), delayMs, 1000, TimeUnit.MILLISECONDS);
+    }
+
+    //not ticking on its own, see tick
+    HysterixStatisticsHistory(final int seconds, final long firstEpochSecond) {
+        this.seconds = seconds;
+        this.nextEpochSecond = firstEpochSecond;
+        this.scheduledExecutorService = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+                .setDaemon(true)
+                .setNameFormat("hysterix-statistics-history-%d")
+                .build());
+    }
+
+    public void record(final int commandIndex, final HysterixResponseMetadata metadata) {
+        final CommandHistory history = histories.computeIfAbsent(commandIndex, i -> new CommandHistory(i, seconds));
+        final int eventCount = metadata.getExecutionEventCount();
+        for (int i = 0; i < eventCount; i++) {
+            history.currentCounts.incrementAndGet(metadata.getExecutionEvent(i).ordinal());
+        }
+        history.currentLatency.incrementAndGet(latencyBucket(metadata.getExecutionTime(TimeUnit.MILLISECONDS)));
+    }
+
+    //circuit breaker state is owned by circuit breaker holder, it is resolved by command index on every tick
+    public void setCircuitOpen(final IntPredicate circuitOpen) {
+        this.circuitOpen = circuitOpen;
+    }
+
+    /**
+     * @return copy of history of a command, oldest second first, limited to last maxSeconds
+     */
+    public Optional<Series> getSeries(final int commandIndex, final int maxSeconds) {
+        final CommandHistory history = histories.get(commandIndex);
+        if (history == null) {
+            return Optional.empty();
+        }
+
+        return Optional.of(history.copy(Math.max(Math.min(maxSeconds, seconds), 0)));
+    }
+
+    public int getSeconds() {
+        return seconds;
+    }
+
+    public static HysterixEventType[] getEventTypes() {
+        return EVENT_TYPES.clone();
+    }
+
+    public void shutdown() {
+        scheduledExecutorService.shutdownNow();
+    }
+
+    /**
+     * Closes the next second. Seconds missed by a late ticker (e.g. a long GC pause) are closed empty first, counts
+     * recorded meanwhile go to the newest closed second. Early or repeated ticks (clock adjustments) still close one second each.
+     */
+    void tick(final long currentTimeMillis) {
+        final long lastCompleteEpochSecond = TimeUnit.MILLISECONDS.toSeconds(currentTimeMillis) - 1;
+        final IntPredicate circuitOpen = this.circuitOpen;
+        //older ones would be overwritten in the ring anyway
+        nextEpochSecond = Math.max(nextEpochSecond, lastCompleteEpochSecond - seconds + 1);
+        for (; nextEpochSecond < lastCompleteEpochSecond; nextEpochSecond++) {
+            for (final CommandHistory history : histories.values()) {
+                history.closeEmpty(nextEpochSecond, circuitOpen.test(history.commandIndex));
+            }
+        }
+        for (final CommandHistory history : histories.values()) {
+            history.close(nextEpochSecond, circuitOpen.test(history.commandIndex));
+        }
+        nextEpochSecond++;
+    }
+
+    private static int latencyBucket(final long latencyMs) {
+        for (int i = 0; i < LATENCY_BUCKETS.length; i++) {
+            if (latencyMs <= LATENCY_BUCKETS[i]) {
+                return i;
+            }
+        }
+
+        return LATENCY_BUCKETS.length - 1;
+    }
+
+    private static long percentile(final long[] bucketCounts, final long total, final double quantile) {
+        if (total == 0) {
+            return 0;
+        }
+        final long rank = (long) Math.ceil(quantile * total);
+        long seen = 0;
+        for (int i = 0; i < bucketCounts.length - 1; i++) {
+            seen += bucketCounts[i];
+            if (seen >= rank) {
+                return LATENCY_BUCKETS[i];
+            }
+        }
+
+        //slower than the highest bound, report the bound rather than Long.MAX_VALUE
+        return LATENCY_BUCKETS[LATENCY_BUCKETS.length - 2];
+    }
+
+    private static final class CommandHistory {
+
+        private final int commandIndex;
+
+        private final AtomicLongArray currentCounts = new AtomicLongArray(EVENT_TYPES.length);
+        private final AtomicLongArray currentLatency = new AtomicLongArray(LATENCY_BUCKETS.length);
+
+        //ring, slot = epochSecond % size, written by the ticker and copied by readers under the lock
+        private final ReentrantLock lock = new ReentrantLock();
+        private final long[] epochSeconds;
+        private final long[] counts; //slot * EVENT_TYPES.length + event type ordinal
+        private final long[] latencyP50;
+        private final long[] latencyP99;
+        private final boolean[] circuitOpen;
+
+        private final long[] bucketCounts = new long[LATENCY_BUCKETS.length]; //ticker scratch
+
+        private CommandHistory(final int commandIndex, final int seconds) {
+            this.commandIndex = commandIndex;
+            this.epochSeconds = new long[seconds];
+            this.counts = new long[seconds * EVENT_TYPES.length];
+            this.latencyP50 = new long[seconds];
+            this.latencyP99 = new long[seconds];
+            this.circuitOpen = new boolean[seconds];
+        }
+
+        private void close(final long epochSecond, final boolean open) {
+            lock.lock();
+            try {
+                final int slot = (int) (epochSecond % epochSeconds.length);
+                epochSeconds[slot] = epochSecond;
+                for (int i = 0; i < EVENT_TYPES.length; i++) {
+                    counts[slot * EVENT_TYPES.length + i] = currentCounts.getAndSet(i, 0);
+                }
+                long total = 0;
+                for (int i = 0; i < bucketCounts.length; i++) {
+                    bucketCounts[i] = currentLatency.getAndSet(i, 0);
+                    total += bucketCounts[i];
+                }
+                latencyP50[slot] = percentile(bucketCounts, total, 0.50D);
+                latencyP99[slot] = percentile(bucketCounts, total, 0.99D);
+                circuitOpen[slot] = open;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void closeEmpty(final long epochSecond, final boolean open) {
+            lock.lock();
+            try {
+                final int slot = (int) (epochSecond % epochSeconds.length);
+                epochSeconds[slot] = epochSecond;
+                Arrays.fill(counts, slot * EVENT_TYPES.length, (slot + 1) * EVENT_TYPES.length, 0);
+                latencyP50[slot] = 0;
+                latencyP99[slot] = 0;
+                circuitOpen[slot] = open;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private Series copy(final int maxSeconds) {
+            lock.lock();
+            try {
+                long newest = 0;
+                for (final long epochSecond : epochSeconds) {
+                    newest = Math.max(newest, epochSecond);
+                }
+                final Series series = new Series(maxSeconds);
+                int size = 0;
+                for (long epochSecond = newest - maxSeconds + 1; epochSecond <= newest; epochSecond++) {
+                    final int slot = (int) (epochSecond % epochSeconds.length);
+                    if (epochSecond < 0 || epochSeconds[slot] != epochSecond) {
+                        continue;
+                    }
+                    series.epochSeconds[size] = epochSecond;
+                    System.arraycopy(counts, slot * EVENT_TYPES.length, series.counts, size * EVENT_TYPES.length, EVENT_TYPES.length);
+                    series.latencyP50[size] = latencyP50[slot];
+                    series.latencyP99[size] = latencyP99[slot];
+                    series.circuitOpen[size] = circuitOpen[slot];
+                    size++;
+                }
+
+                return series.trim(size);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+    }
+
+    /**
+     * Column oriented copy of a command history, index i of every array describes the same second.
+     */
+    public static final class Series {
+
+        private final long[] epochSeconds;
+        private final long[] counts;
+        private final long[] latencyP50;
+        private final long[] latencyP99;
+        private final boolean[] circuitOpen;
+
+        private Series(final int size) {
+            this(new long[size], new long[size * EVENT_TYPES.length], new long[size], new long[size], new boolean[size]);
+        }
+
+        private Series(final long[] epochSeconds, final long[] counts, final long[] latencyP50, final long[] latencyP99, final boolean[] circuitOpen) {
+            this.epochSeconds = epochSeconds;
+            this.counts = counts;
+            this.latencyP50 = latencyP50;
+            this.latencyP99 = latencyP99;
+            this.circuitOpen = circuitOpen;
+        }
+
+        private Series trim(final int size) {
+            if (size == epochSeconds.length) {
+                return this;
+            }
+
+            return new Series(Arrays.copyOf(epochSeconds, size), Arrays.copyOf(counts, size * EVENT_TYPES.length),
+                    Arrays.copyOf(latencyP50, size), Arrays.copyOf(latencyP99, size), Arrays.copyOf(circuitOpen, size));
+        }
+
+        public int size() {
+            return epochSeconds.length;
+        }
+
+        public long getEpochSecond(final int i) {
+            return epochSeconds[i];
+        }
+
+        public long getCount(final int i, final HysterixEventType eventType) {
+            return counts[i * EVENT_TYPES.length + eventType.ordinal()];
+        }
+
+        public long getLatencyP50Ms(final int i) {
+            return latencyP50[i];
+        }
+
+        public long getLatencyP99Ms(final int i) {
+            return latencyP99[i];
+        }
+
+        public boolean isCircuitOpen(final int i) {
+            return circuitOpen[i];
+        }
+
+    }
+
+}
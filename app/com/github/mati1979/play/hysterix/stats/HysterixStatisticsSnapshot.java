@@ -0,0 +1,217 @@
+package com.github.mati1979.play.hysterix.stats;
+
+import com.codahale.metrics.Snapshot;
+
+/**
+ * Point in time, immutable view of statistics, each underlying histogram is read exactly once
+ * so that derived values (error percentage, total count, percentiles) are computed from consistent data.
+ */
+public final class HysterixStatisticsSnapshot {
+
+    private final long successCount;
+    private final long slowCallCount;
+    private final long failureCount;
+    private final long timeoutCount;
+    private final long fallbackSuccessCount;
+    private final long fallbackFailureCount;
+    private final long fallbackRejectionCount;
+    private final long exceptionsThrownCount;
+    private final long responsesFromCacheCount;
+    private final long responsesStaleCount;
+    private final long responsesCoalescedCount;
+    private final long shortCircuitedCount;
+    private final long deadlineExceededCount;
+    private final long loadShedCount;
+    private final long rateLimitedCount;
+    private final long semaphoreRejectedCount;
+    private final long threadPoolRejectedCount;
+    private final Snapshot executionTime;
+    private final Snapshot remoteExecutionTime;
+    private final Snapshot[] outcomeLatency;
+    private final Snapshot remainingBudget;
+    private final Snapshot[] phaseLatency;
+
+    HysterixStatisticsSnapshot(final long successCount,
+                               final long slowCallCount,
+                               final long failureCount,
+                               final long timeoutCount,
+                               final long fallbackSuccessCount,
+                               final long fallbackFailureCount,
+                               final long fallbackRejectionCount,
+                               final long exceptionsThrownCount,
+                               final long responsesFromCacheCount,
+                               final long responsesStaleCount,
+                               final long responsesCoalescedCount,
+                               final long shortCircuitedCount,
+                               final long deadlineExceededCount,
+                               final long loadShedCount,
+                               final long rateLimitedCount,
+                               final long semaphoreRejectedCount,
+                               final long threadPoolRejectedCount,
+                               final Snapshot executionTime,
+                               final Snapshot remoteExecutionTime,
+                               final Snapshot[] outcomeLatency,
+                               final Snapshot remainingBudget,
+                               final Snapshot[] phaseLatency) {
+        this.successCount = successCount;
+        this.slowCallCount = slowCallCount;
+        this.failureCount = failureCount;
+        this.timeoutCount = timeoutCount;
+        this.fallbackSuccessCount = fallbackSuccessCount;
+        this.fallbackFailureCount = fallbackFailureCount;
+        this.fallbackRejectionCount = fallbackRejectionCount;
+        this.exceptionsThrownCount = exceptionsThrownCount;
+        this.responsesFromCacheCount = responsesFromCacheCount;
+        this.responsesStaleCount = responsesStaleCount;
+        this.responsesCoalescedCount = responsesCoalescedCount;
+        this.shortCircuitedCount = shortCircuitedCount;
+        this.deadlineExceededCount = deadlineExceededCount;
+        this.loadShedCount = loadShedCount;
+        this.rateLimitedCount = rateLimitedCount;
+        this.semaphoreRejectedCount = semaphoreRejectedCount;
+        this.threadPoolRejectedCount = threadPoolRejectedCount;
+        this.executionTime = executionTime;
+        this.remoteExecutionTime = remoteExecutionTime;
+        this.outcomeLatency = outcomeLatency;
+        this.remainingBudget = remainingBudget;
+        this.phaseLatency = phaseLatency;
+    }
+
+    public long getErrorCount() {
+        return failureCount + timeoutCount + exceptionsThrownCount + shortCircuitedCount;
+    }
+
+    public long getTotalCount() {
+        return getSuccessWithoutRequestCacheCount() + getErrorCount();
+    }
+
+    public long getSuccessWithoutRequestCacheCount() {
+        return Math.max(0, successCount - responsesFromCacheCount);
+    }
+
+    public long getSuccessCount() {
+        return successCount;
+    }
+
+    public long getSlowCallCount() {
+        return slowCallCount;
+    }
+
+    public long getFailureCount() {
+        return failureCount;
+    }
+
+    public long getTimeoutCount() {
+        return timeoutCount;
+    }
+
+    public long getFallbackSuccessCount() {
+        return fallbackSuccessCount;
+    }
+
+    public long getFallbackFailureCount() {
+        return fallbackFailureCount;
+    }
+
+    public long getFallbackRejectionCount() {
+        return fallbackRejectionCount;
+    }
+
+    public long getExceptionsThrownCount() {
+        return exceptionsThrownCount;
+    }
+
+    public long getResponsesFromCacheCount() {
+        return responsesFromCacheCount;
+    }
+
+    public long getResponsesStaleCount() {
+        return responsesStaleCount;
+    }
+
+    public long getResponsesCoalescedCount() {
+        return responsesCoalescedCount;
+    }
+
+    public long getShortCircuitedCount() {
+        return shortCircuitedCount;
+    }
+
+    public long getDeadlineExceededCount() {
+        return deadlineExceededCount;
+    }
+
+    public long getLoadShedCount() {
+        return loadShedCount;
+    }
+
+    public long getRateLimitedCount() {
+        return rateLimitedCount;
+    }
+
+    public long getSemaphoreRejectedCount() {
+        return semaphoreRejectedCount;
+    }
+
+    public long getThreadPoolRejectedCount() {
+        return threadPoolRejectedCount;
+    }
+
+    public int getErrorPercentage() {
+        return percentage(getErrorCount());
+    }
+
+    public int getSlowCallPercentage() {
+        return percentage(slowCallCount);
+    }
+
+    public long getAverageExecutionTime() {
+        return Math.round(executionTime.getMean());
+    }
+
+    public long getAverageExecutionTimePercentile(final double quantile) {
+        return Math.round(executionTime.getValue(quantile));
+    }
+
+    public long getAverageRemoteExecutionTime() {
+        return Math.round(remoteExecutionTime.getMean());
+    }
+
+    public long getRemoteExecutionTimePercentile(final double quantile) {
+        return Math.round(remoteExecutionTime.getValue(quantile));
+    }
+
+    public long getAverageOutcomeLatency(final HysterixOutcomeLatency outcome) {
+        return Math.round(outcomeLatency[outcome.ordinal()].getMean());
+    }
+
+    public long getOutcomeLatencyPercentile(final HysterixOutcomeLatency outcome, final double quantile) {
+        return Math.round(outcomeLatency[outcome.ordinal()].getValue(quantile));
+    }
+
+    public long getAverageRemainingBudget() {
+        return Math.round(remainingBudget.getMean());
+    }
+
+    public long getRemainingBudgetPercentile(final double quantile) {
+        return Math.round(remainingBudget.getValue(quantile));
+    }
+
+    public long getAveragePhaseLatencyMicros(final HysterixPhaseLatency phase) {
+        return Math.round(phaseLatency[phase.ordinal()].getMean());
+    }
+
+    public long getPhaseLatencyMicrosPercentile(final HysterixPhaseLatency phase, final double quantile) {
+        return Math.round(phaseLatency[phase.ordinal()].getValue(quantile));
+    }
+
+    private int percentage(final long count) {
+        final long totalCount = getTotalCount();
+        if (totalCount > 0) {
+            return (int) ((double) count / totalCount * 100);
+        }
+
+        return 0;
+    }
+
+}
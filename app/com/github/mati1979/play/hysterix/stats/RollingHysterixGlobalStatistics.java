@@ -11,14 +11,49 @@ import java.util.concurrent.TimeUnit;
  */
 public class RollingHysterixGlobalStatistics extends AbstractHysterixGlobalStatistics {
 
+    private static final long MAX_RESTORED_COUNT = 10000;
+
     public RollingHysterixGlobalStatistics(final HysterixSettings hysterixSettings, final String key) {
         super(hysterixSettings, key);
     }
 
+    /**
+     * Adds counts recorded before a restart, they expire together with the current time window.
+     * Counts above MAX_RESTORED_COUNT in total are scaled down by one factor, so error and slow call rates stay the same.
+     */
+    public void restoreCounts(final long success,
+                              final long failure,
+                              final long timeout,
+                              final long exceptionsThrown,
+                              final long shortCircuited,
+                              final long slowCall) {
+        final long totalCount = success + failure + timeout + exceptionsThrown + shortCircuited;
+        final double scale = totalCount > MAX_RESTORED_COUNT ? (double) MAX_RESTORED_COUNT / totalCount : 1;
+        final Histograms histograms = this.histograms;
+        update(histograms.countSuccess, success, scale);
+        update(histograms.countFailure, failure, scale);
+        update(histograms.countTimeout, timeout, scale);
+        update(histograms.countExceptionsThrown, exceptionsThrown, scale);
+        update(histograms.countShortCircuited, shortCircuited, scale);
+        update(histograms.countSlowCall, slowCall, scale);
+    }
+
+    private static void update(final Histogram histogram, final long count, final double scale) {
+        final long scaledCount = Math.round(count * scale);
+        for (long i = 0; i < scaledCount; i++) {
+            histogram.update(1);
+        }
+    }
+
     protected Histogram createHistogram() {
         final long rollingTimeWindowIntervalInMs = hysterixSettings.getRollingTimeWindowIntervalInMs();
 
         return new Histogram(new SlidingTimeWindowReservoir(rollingTimeWindowIntervalInMs, TimeUnit.MILLISECONDS));
     }
 
+    //a sliding window keeps every sample, there is one per command and group, breakdown is read from global statistics
+    protected boolean isLatencyBreakdownKept() {
+        return false;
+    }
+
 }
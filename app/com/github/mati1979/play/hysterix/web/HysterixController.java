@@ -1,17 +1,34 @@
 package com.github.mati1979.play.hysterix.web;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.github.mati1979.play.hysterix.HysterixCommand;
 import com.github.mati1979.play.hysterix.HysterixContext;
+import com.github.mati1979.play.hysterix.HysterixEventType;
+import com.github.mati1979.play.hysterix.HysterixSettings;
 import com.github.mati1979.play.hysterix.event.HysterixStatisticsEvent;
+import com.github.mati1979.play.hysterix.isolation.HysterixThreadPool;
+import com.github.mati1979.play.hysterix.registry.HysterixCommandRegistry;
+import com.github.mati1979.play.hysterix.stats.HysterixOutcomeLatency;
+import com.github.mati1979.play.hysterix.stats.HysterixPhaseLatency;
+import com.github.mati1979.play.hysterix.stats.HysterixStatisticsHistory;
+import com.github.mati1979.play.hysterix.stats.HysterixStatisticsSnapshot;
 import com.google.common.eventbus.Subscribe;
-import play.libs.EventSource;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import play.libs.Json;
 import play.mvc.Controller;
 import play.mvc.Result;
 
-import java.util.List;
-import java.util.concurrent.CopyOnWriteArrayList;
-import java.util.stream.Collectors;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.DoubleToLongFunction;
+import java.util.function.IntToLongFunction;
 
 /**
  * Created by mati on 06/06/2014.
@@ -21,39 +38,107 @@ public class HysterixController extends Controller {
     private static final play.Logger.ALogger logger = play.Logger.of(HysterixController.class);
 
     private final HysterixContext hysterixContext;
-    private List<EventSource> activeEventSources;
+    private final Set<HysterixStreamClient> activeEventSources = ConcurrentHashMap.newKeySet();
+    private final ExecutorService deliveryExecutor;
 
     public HysterixController(final HysterixContext hysterixContext) {
         this.hysterixContext = hysterixContext;
-        activeEventSources = new CopyOnWriteArrayList();
+        this.deliveryExecutor = Executors.newFixedThreadPool(hysterixContext.getHysterixSettings().getStreamDeliveryPoolSize(),
+                new ThreadFactoryBuilder().setDaemon(true).setNameFormat("hysterix-stream-delivery-%d").build());
         hysterixContext.getEventBus().register(new Subscriber());
     }
 
     public Result index() {
-        final EventSource eventSource = new EventSource() {
-            @Override
-            public void onConnected() {
-                final boolean hasNulls = activeEventSources.stream().filter(eventSource -> eventSource == null).findAny().isPresent();
-                if (hasNulls) {
-                    activeEventSources = new CopyOnWriteArrayList(activeEventSources.stream().filter(eventS -> eventS != null).collect(Collectors.toList()));
-                }
-                if (activeEventSources.size() > 1000) {
-                    logger.warn("activeEventSources over 1000, possibly memory leak!");
-                }
-                activeEventSources.add(this);
-                onDisconnected(() -> {
-                    activeEventSources.remove(this);
+        final HysterixSettings settings = hysterixContext.getHysterixSettings();
+
+        return new HysterixStreamClient(settings.getStreamClientMaxQueueSize(), settings.getStreamClientMaxLagMs(), deliveryExecutor,
+                client -> {
+                    activeEventSources.add(client);
+                    logger.debug("client connected, activeEventSources.size:" + activeEventSources.size());
+                },
+                client -> {
+                    activeEventSources.remove(client);
                     logger.debug("client disconnected, activeEventSources.size:" + activeEventSources.size());
-                });
+                }).toResult();
+    }
+
+    /**
+     * Per client delivery metrics, lag is the age of the oldest message not yet written to a client.
+     */
+    public Result clients() {
+        final ArrayNode clients = Json.newObject().arrayNode();
+        activeEventSources.stream().forEach(client -> {
+            final ObjectNode data = clients.addObject();
+            data.put("id", client.getId());
+            data.put("connectedAt", client.getConnectedAt());
+            data.put("queueSize", client.getQueueSize());
+            data.put("lagMs", client.getLagMs());
+            data.put("lastDeliveryLagMs", client.getLastDeliveryLagMs());
+            data.put("deliveredCount", client.getDeliveredCount());
+            data.put("coalescedCount", client.getCoalescedCount());
+            data.put("droppedCount", client.getDroppedCount());
+        });
 
-                logger.debug("client connected, activeEventSources.size:" + activeEventSources.size());
+        return ok(clients);
+    }
+
+    /**
+     * Per second history of every command, column oriented to keep it compact. Optional seconds query parameter
+     * limits history to the last n seconds, it is clamped to the seconds kept.
+     */
+    public Result history() {
+        final Optional<HysterixStatisticsHistory> history = hysterixContext.getHysterixGlobalStatisticsHolder().getStatisticsHistory();
+        if (!history.isPresent()) {
+            return notFound("Statistics history is disabled, enable statisticsHistoryEnabled.");
+        }
+        final String secondsParam = request().getQueryString("seconds");
+        final int seconds;
+        try {
+            seconds = secondsParam == null ? history.get().getSeconds()
+                    : Math.min(Math.max(Integer.parseInt(secondsParam), 0), history.get().getSeconds());
+        } catch (final NumberFormatException e) {
+            return badRequest("Invalid seconds:" + secondsParam);
+        }
+        final HysterixEventType[] eventTypes = HysterixStatisticsHistory.getEventTypes();
+        final HysterixCommandRegistry registry = hysterixContext.getHysterixCommandRegistry();
+
+        return ok(HysterixStreamWriter.json(data -> {
+            data.writeNumberField("currentTime", System.currentTimeMillis());
+            data.writeArrayFieldStart("commands");
+            for (int commandIndex = 0; commandIndex < registry.size(); commandIndex++) {
+                final Optional<HysterixStatisticsHistory.Series> series = history.get().getSeries(commandIndex, seconds);
+                if (!series.isPresent()) {
+                    continue;
+                }
+                final HysterixStatisticsHistory.Series s = series.get();
+                data.writeStartObject();
+                data.writeStringField("group", registry.getCommandGroupKey(commandIndex));
+                data.writeStringField("name", registry.getCommandKey(commandIndex));
+                writeColumn(data, "epochSecond", s.size(), s::getEpochSecond);
+                data.writeObjectFieldStart("counts");
+                for (final HysterixEventType eventType : eventTypes) {
+                    writeColumn(data, eventType.name(), s.size(), i -> s.getCount(i, eventType));
+                }
+                data.writeEndObject();
+                writeColumn(data, "latencyP50Ms", s.size(), s::getLatencyP50Ms);
+                writeColumn(data, "latencyP99Ms", s.size(), s::getLatencyP99Ms);
+                writeColumn(data, "circuitOpen", s.size(), i -> s.isCircuitOpen(i) ? 1 : 0);
+                data.writeEndObject();
             }
-        };
+            data.writeEndArray();
+        })).as("application/json");
+    }
 
-        return ok(eventSource);
+    private static void writeColumn(final JsonGenerator data, final String fieldName, final int size, final IntToLongFunction value) throws IOException {
+        data.writeArrayFieldStart(fieldName);
+        for (int i = 0; i < size; i++) {
+            data.writeNumber(value.applyAsLong(i));
+        }
+        data.writeEndArray();
     }
 
     public Result clearActiveEventSources() {
+        activeEventSources.stream().forEach(HysterixStreamClient::disconnect);
         activeEventSources.clear();
 
         return ok(String.valueOf(activeEventSources.size() == 0));
@@ -61,66 +146,139 @@ public class HysterixController extends Controller {
 
     private class Subscriber {
 
+        private final double[] quantiles = { 0.0D, 0.25D, 0.50D, 0.75D, 0.90D, 0.95D, 0.99D, 0.995D, 1.0D };
+        private final String[] quantileNames = { "0", "25", "50", "75", "90", "95", "99", "99.5", "100" };
+        private final String[] outcomeLatencyFields = Arrays.stream(HysterixOutcomeLatency.values())
+                .map(outcome -> "latencyOutcome_" + outcome.name() + "_mean")
+                .toArray(String[]::new);
+        private final String[] phaseLatencyFields = Arrays.stream(HysterixPhaseLatency.values())
+                .map(phase -> "latencyPhase_" + phase.name() + "_meanMicros")
+                .toArray(String[]::new);
+
         @Subscribe
         public void onEvent(final HysterixStatisticsEvent event) {
-            final ObjectNode data = Json.newObject();
-
-            data.put("type", "HystrixCommand");
-            data.put("name", event.getEvent().getHysterixCommand().getCommandKey());
-            data.put("group", (String) event.getEvent().getHysterixCommand().getCommandGroupKey().orElse(""));
-            data.put("currentTime", event.getEvent().getCurrentTime());
-            data.put("errorPercentage", event.getTimeWindowedMetrics().getErrorPercentage());
-            data.put("isCircuitBreakerOpen", event.getEvent().getHysterixCommand().getHysterixCircuitBreaker().isOpen());
-            data.put("errorCount", event.getTimeWindowedMetrics().getErrorCount());
-            data.put("requestCount", event.getTimeWindowedMetrics().getTotalCount());
-            data.put("rollingCountCollapsedRequests", event.getTimeWindowedMetrics().getResponsesFromCacheCount());
-            data.put("rollingCountExceptionsThrown", event.getTimeWindowedMetrics().getExceptionsThrownCount());
-            data.put("rollingCountFailure", event.getTimeWindowedMetrics().getFailureCount());
-            data.put("rollingCountFallbackFailure", event.getTimeWindowedMetrics().getFallbackFailureCount());
-            data.put("rollingCountFallbackRejection", 0); //TODO, think over when do we reject fallback?
-            data.put("rollingCountFallbackSuccess", event.getTimeWindowedMetrics().getFallbackSuccessCount());
-            data.put("rollingCountResponsesFromCache", event.getTimeWindowedMetrics().getResponsesFromCacheCount());
-            data.put("rollingCountSemaphoreRejected", 0); //TODO only when semaphore implemented
-            data.put("rollingCountShortCircuited", event.getTimeWindowedMetrics().getShortCircuitedCount());
-            data.put("rollingCountSuccess", event.getTimeWindowedMetrics().getSuccessWithoutRequestCacheCount());
-            data.put("rollingCountThreadPoolRejected", 0);
-            data.put("rollingCountTimeout", event.getTimeWindowedMetrics().getTimeoutCount());
-            data.put("currentConcurrentExecutionCount", 0); //TODO
-            data.put("latencyExecute_mean", event.getTimeWindowedMetrics().getAverageExecutionTime());
-
-            final ObjectNode percentiles = Json.newObject();
-            percentiles.put("0", event.getTimeWindowedMetrics().getAverageExecutionTimePercentile(0.0D));
-            percentiles.put("25", event.getTimeWindowedMetrics().getAverageExecutionTimePercentile(0.25D));
-            percentiles.put("50", event.getTimeWindowedMetrics().getAverageExecutionTimePercentile(0.50D));
-            percentiles.put("75", event.getTimeWindowedMetrics().getAverageExecutionTimePercentile(0.75D));
-            percentiles.put("90", event.getTimeWindowedMetrics().getAverageExecutionTimePercentile(0.90D));
-            percentiles.put("95", event.getTimeWindowedMetrics().getAverageExecutionTimePercentile(0.95D));
-            percentiles.put("99", event.getTimeWindowedMetrics().getAverageExecutionTimePercentile(0.99D));
-            percentiles.put("99.5", event.getTimeWindowedMetrics().getAverageExecutionTimePercentile(0.995D));
-            percentiles.put("100", event.getTimeWindowedMetrics().getAverageExecutionTimePercentile(1.0D));
-
-            data.put("latencyExecute", percentiles);
-
-            data.put("latencyTotal_mean", event.getTimeWindowedMetrics().getAverageExecutionTime());
-            data.put("latencyTotal", percentiles);
-
-            data.put("propertyValue_circuitBreakerRequestVolumeThreshold", hysterixContext.getHysterixSettings().getCircuitBreakerRequestVolumeThreshold());
-            data.put("propertyValue_circuitBreakerSleepWindowInMilliseconds", hysterixContext.getHysterixSettings().getCircuitBreakerSleepWindowInMilliseconds());
-            data.put("propertyValue_circuitBreakerErrorThresholdPercentage", hysterixContext.getHysterixSettings().getCircuitBreakerErrorThresholdPercentage());
-            data.put("propertyValue_circuitBreakerForceOpen", false);
-            data.put("propertyValue_circuitBreakerForceClosed", hysterixContext.getHysterixSettings().isCircuitBreakerForceClosed());
-            data.put("propertyValue_circuitBreakerEnabled", hysterixContext.getHysterixSettings().isCircuitBreakerEnabled());
-            data.put("propertyValue_executionIsolationStrategy", "THREAD");
-            data.put("propertyValue_executionIsolationThreadTimeoutInMilliseconds", "2000");
-            data.put("propertyValue_executionIsolationThreadInterruptOnTimeout", true);
-            data.putNull("propertyValue_executionIsolationThreadPoolKeyOverride");
-            data.put("propertyValue_executionIsolationSemaphoreMaxConcurrentRequests", 20);
-            data.put("propertyValue_fallbackIsolationSemaphoreMaxConcurrentRequests", 20);
-            data.put("propertyValue_metricsRollingStatisticalWindowInMilliseconds", hysterixContext.getHysterixSettings().getRollingTimeWindowIntervalInMs());
-            data.put("propertyValue_requestCacheEnabled", hysterixContext.getHysterixSettings().isRequestCacheEnabled());
-            data.put("propertyValue_requestLogEnabled", hysterixContext.getHysterixSettings().isLogRequestStatistics());
-            data.put("reportingHosts", 1);
-            activeEventSources.stream().filter(eventSource -> eventSource != null).forEach(eventSource -> eventSource.send(EventSource.Event.event(data)));
+            if (activeEventSources.isEmpty()) {
+                return;
+            }
+
+            final HysterixCommand command = event.getEvent().getHysterixCommand();
+            final HysterixStatisticsSnapshot stats = event.getTimeWindowedMetrics().getSnapshot();
+            //latency breakdown is not kept by time windowed statistics
+            final HysterixStatisticsSnapshot breakdown = event.getGlobalMetrics().getSnapshot();
+            final HysterixSettings settings = hysterixContext.getHysterixSettings();
+            final Optional<String> threadPoolKey = command.getThreadPoolKey();
+            final long currentTime = event.getEvent().getCurrentTime();
+
+            send("HystrixCommand:" + command.getCommandGroupKey().orElse("") + "." + command.getCommandKey(), HysterixStreamWriter.message(data -> {
+                data.writeStringField("type", "HystrixCommand");
+                data.writeStringField("name", command.getCommandKey());
+                data.writeStringField("group", (String) command.getCommandGroupKey().orElse(""));
+                data.writeNumberField("currentTime", currentTime);
+                data.writeNumberField("errorPercentage", stats.getErrorPercentage());
+                data.writeBooleanField("isCircuitBreakerOpen", command.getHysterixCircuitBreaker().isOpen());
+                data.writeNumberField("errorCount", stats.getErrorCount());
+                data.writeNumberField("requestCount", stats.getTotalCount());
+                data.writeNumberField("rollingCountCollapsedRequests", stats.getResponsesFromCacheCount());
+                data.writeNumberField("rollingCountExceptionsThrown", stats.getExceptionsThrownCount());
+                data.writeNumberField("rollingCountFailure", stats.getFailureCount());
+                data.writeNumberField("rollingCountSlowCall", stats.getSlowCallCount());
+                data.writeNumberField("slowCallPercentage", stats.getSlowCallPercentage());
+                data.writeNumberField("rollingCountFallbackFailure", stats.getFallbackFailureCount());
+                data.writeNumberField("rollingCountFallbackRejection", stats.getFallbackRejectionCount());
+                data.writeNumberField("rollingCountFallbackSuccess", stats.getFallbackSuccessCount());
+                data.writeNumberField("rollingCountResponsesFromCache", stats.getResponsesFromCacheCount());
+                data.writeNumberField("rollingCountResponsesStale", stats.getResponsesStaleCount());
+                data.writeNumberField("rollingCountResponsesCoalesced", stats.getResponsesCoalescedCount());
+                data.writeNumberField("rollingCountSemaphoreRejected", stats.getSemaphoreRejectedCount());
+                data.writeNumberField("rollingCountLoadShed", stats.getLoadShedCount());
+                data.writeNumberField("rollingCountRateLimited", stats.getRateLimitedCount());
+                data.writeNumberField("rollingCountDeadlineExceeded", stats.getDeadlineExceededCount());
+                data.writeNumberField("rollingCountShortCircuited", stats.getShortCircuitedCount());
+                data.writeNumberField("rollingCountSuccess", stats.getSuccessWithoutRequestCacheCount());
+                data.writeNumberField("rollingCountThreadPoolRejected", stats.getThreadPoolRejectedCount());
+                data.writeNumberField("rollingCountTimeout", stats.getTimeoutCount());
+                data.writeNumberField("currentConcurrentExecutionCount", 0); //TODO
+
+                //execute - remote calls only, total - end-to-end including cache hits, short circuits and fallbacks
+                data.writeNumberField("latencyExecute_mean", breakdown.getAverageRemoteExecutionTime());
+                writePercentiles(data, "latencyExecute", percentiles(breakdown::getRemoteExecutionTimePercentile));
+                data.writeNumberField("latencyTotal_mean", stats.getAverageExecutionTime());
+                writePercentiles(data, "latencyTotal", percentiles(stats::getAverageExecutionTimePercentile));
+                for (final HysterixOutcomeLatency outcome : HysterixOutcomeLatency.values()) {
+                    data.writeNumberField(outcomeLatencyFields[outcome.ordinal()], breakdown.getAverageOutcomeLatency(outcome));
+                }
+                data.writeNumberField("remainingBudget_mean", breakdown.getAverageRemainingBudget());
+                writePercentiles(data, "remainingBudget", percentiles(breakdown::getRemainingBudgetPercentile));
+                for (final HysterixPhaseLatency phase : HysterixPhaseLatency.values()) {
+                    data.writeNumberField(phaseLatencyFields[phase.ordinal()], breakdown.getAveragePhaseLatencyMicros(phase));
+                }
+
+                data.writeNumberField("propertyValue_circuitBreakerRequestVolumeThreshold", settings.getCircuitBreakerRequestVolumeThreshold());
+                data.writeNumberField("propertyValue_circuitBreakerSleepWindowInMilliseconds", settings.getCircuitBreakerSleepWindowInMilliseconds());
+                data.writeNumberField("propertyValue_circuitBreakerErrorThresholdPercentage", settings.getCircuitBreakerErrorThresholdPercentage());
+                data.writeNumberField("propertyValue_circuitBreakerSlowCallDurationThresholdInMilliseconds", command.getSlowCallDurationThresholdMs());
+                data.writeNumberField("propertyValue_circuitBreakerSlowCallRateThresholdPercentage", settings.getCircuitBreakerSlowCallRateThresholdPercentage());
+                data.writeBooleanField("propertyValue_circuitBreakerForceOpen", false);
+                data.writeBooleanField("propertyValue_circuitBreakerForceClosed", settings.isCircuitBreakerForceClosed());
+                data.writeBooleanField("propertyValue_circuitBreakerEnabled", settings.isCircuitBreakerEnabled());
+                data.writeStringField("propertyValue_executionIsolationStrategy", threadPoolKey.isPresent() ? "THREAD" : "SEMAPHORE");
+                data.writeStringField("propertyValue_executionIsolationThreadTimeoutInMilliseconds", "2000");
+                data.writeBooleanField("propertyValue_executionIsolationThreadInterruptOnTimeout", true);
+                data.writeStringField("propertyValue_executionIsolationThreadPoolKeyOverride", threadPoolKey.orElse(null));
+                data.writeNumberField("propertyValue_executionIsolationSemaphoreMaxConcurrentRequests", 20);
+                data.writeNumberField("propertyValue_fallbackIsolationSemaphoreMaxConcurrentRequests", settings.getFallbackIsolationSemaphoreMaxConcurrentRequests());
+                data.writeNumberField("propertyValue_metricsRollingStatisticalWindowInMilliseconds", settings.getRollingTimeWindowIntervalInMs());
+                data.writeBooleanField("propertyValue_requestCacheEnabled", settings.isRequestCacheEnabled());
+                data.writeBooleanField("propertyValue_requestLogEnabled", settings.isLogRequestStatistics());
+                data.writeNumberField("reportingHosts", 1);
+            }));
+
+            threadPoolKey.flatMap(key -> hysterixContext.getHysterixThreadPoolHolder().findThreadPool(key))
+                    .ifPresent(threadPool -> send("HystrixThreadPool:" + threadPool.getKey(), threadPoolMessage(threadPool, currentTime)));
+        }
+
+        private long[] percentiles(final DoubleToLongFunction percentile) {
+            final long[] percentiles = new long[quantiles.length];
+            for (int i = 0; i < quantiles.length; i++) {
+                percentiles[i] = percentile.applyAsLong(quantiles[i]);
+            }
+
+            return percentiles;
+        }
+
+        private void writePercentiles(final JsonGenerator data, final String fieldName, final long[] percentiles) throws IOException {
+            data.writeObjectFieldStart(fieldName);
+            for (int i = 0; i < percentiles.length; i++) {
+                data.writeNumberField(quantileNames[i], percentiles[i]);
+            }
+            data.writeEndObject();
+        }
+
+        private String threadPoolMessage(final HysterixThreadPool threadPool, final long currentTime) {
+            return HysterixStreamWriter.message(data -> {
+                data.writeStringField("type", "HystrixThreadPool");
+                data.writeStringField("name", threadPool.getKey());
+                data.writeNumberField("currentTime", currentTime);
+                data.writeNumberField("currentActiveCount", threadPool.getCurrentActiveCount());
+                data.writeNumberField("currentCompletedTaskCount", threadPool.getCurrentCompletedTaskCount());
+                data.writeNumberField("currentCorePoolSize", threadPool.getCurrentCorePoolSize());
+                data.writeNumberField("currentLargestPoolSize", threadPool.getCurrentLargestPoolSize());
+                data.writeNumberField("currentMaximumPoolSize", threadPool.getCurrentMaximumPoolSize());
+                data.writeNumberField("currentPoolSize", threadPool.getCurrentPoolSize());
+                data.writeNumberField("currentQueueSize", threadPool.getCurrentQueueSize());
+                data.writeNumberField("currentTaskCount", threadPool.getCurrentTaskCount());
+                data.writeNumberField("rollingCountThreadsExecuted", threadPool.getRollingCountThreadsExecuted());
+                data.writeNumberField("rollingMaxActiveThreads", threadPool.getRollingMaxActiveThreads());
+                data.writeNumberField("rollingCountCommandRejections", threadPool.getRollingCountRejected());
+                data.writeNumberField("propertyValue_queueSizeRejectionThreshold", threadPool.getMaxQueueSize());
+                data.writeNumberField("propertyValue_metricsRollingStatisticalWindowInMilliseconds", hysterixContext.getHysterixSettings().getRollingTimeWindowIntervalInMs());
+                data.writeNumberField("reportingHosts", 1);
+            });
+        }
+
+        //message is formatted once and the same string is queued to every client, newer message for the same key replaces a pending one
+        private void send(final String key, final String message) {
+            activeEventSources.stream().forEach(client -> client.offer(key, message));
         }
 
     }
@@ -0,0 +1,256 @@
+package com.github.mati1979.play.hysterix.web;
+
+import com.github.mati1979.play.hysterix.HysterixExecution;
+import play.api.http.Writeable$;
+import play.api.libs.iteratee.Enumeratee$;
+import play.api.libs.iteratee.Enumerator;
+import play.api.libs.iteratee.Enumerator$;
+import play.api.mvc.Codec$;
+import play.api.mvc.Results$;
+import play.libs.F;
+import play.mvc.Result;
+import scala.Option;
+import scala.concurrent.ExecutionContext;
+import scala.concurrent.Future;
+import scala.runtime.AbstractFunction0;
+import scala.runtime.BoxedUnit;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * SSE client with its own bounded outbound queue, messages are coalesced per key (only the latest message
+ * for a command or thread pool is kept) and the oldest message is dropped once queue is full.
+ *
+ * The response body pulls the next message only once the previous one was written to the socket, so the queue drains
+ * as fast as the client reads and a slow client never delays producers or other clients. Play's Chunks.Out could not be
+ * used, its write is a non-blocking push into an unbounded channel. Client which stays behind longer than maxLagMs is
+ * disconnected: it stops receiving messages at once and its response ends with the next pull.
+ */
+final class HysterixStreamClient {
+
+    private static final play.Logger.ALogger logger = play.Logger.of(HysterixStreamClient.class);
+
+    private static final AtomicLong ID_SEQUENCE = new AtomicLong();
+
+    private final long id = ID_SEQUENCE.incrementAndGet();
+    private final long connectedAt = System.currentTimeMillis();
+
+    private final int maxQueueSize;
+    private final long maxLagMs;
+    private final ExecutionContext deliveryContext;
+    private final Consumer<HysterixStreamClient> onConnected;
+    private final Consumer<HysterixStreamClient> onDisconnected;
+
+    //insertion ordered, a coalesced message keeps position and enqueue time of the message it replaced
+    private final LinkedHashMap<String, Pending> pending = new LinkedHashMap<>();
+    private final ReentrantLock lock = new ReentrantLock();
+
+    //response waiting for a message while queue is empty, guarded by lock
+    private F.RedeemablePromise<Option<String>> waiting;
+
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    private final AtomicLong deliveredCount = new AtomicLong();
+    private final AtomicLong coalescedCount = new AtomicLong();
+    private final AtomicLong droppedCount = new AtomicLong();
+    private volatile long lastDeliveryLagMs = 0;
+
+    HysterixStreamClient(final int maxQueueSize,
+                         final long maxLagMs,
+                         final Executor deliveryExecutor,
+                         final Consumer<HysterixStreamClient> onConnected,
+                         final Consumer<HysterixStreamClient> onDisconnected) {
+        this.maxQueueSize = maxQueueSize;
+        this.maxLagMs = maxLagMs;
+        this.deliveryContext = HysterixExecution.toExecutionContext(deliveryExecutor);
+        this.onConnected = onConnected;
+        this.onDisconnected = onDisconnected;
+    }
+
+    //chunked text/event-stream response, client is connected until the response ends or disconnect is called
+    Result toResult() {
+        //a response which fails instead of completing stops pulling, offered messages then age until the lag disconnects it
+        final Enumerator<String> messages = Enumerator$.MODULE$.generateM(new AbstractFunction0<Future<Option<String>>>() {
+            @Override
+            public Future<Option<String>> apply() {
+                return next().wrapped();
+            }
+        }, deliveryContext).through(Enumeratee$.MODULE$.<String>onIterateeDone(new AbstractFunction0<BoxedUnit>() {
+            @Override
+            public BoxedUnit apply() {
+                disconnect();
+                return BoxedUnit.UNIT;
+            }
+        }, deliveryContext));
+        final play.api.mvc.Result result = Results$.MODULE$.Ok().chunked(messages, Writeable$.MODULE$.wString(Codec$.MODULE$.utf_8()))
+                .as("text/event-stream");
+        onConnected.accept(this);
+
+        return () -> result;
+    }
+
+    void offer(final String key, final String message) {
+        if (closed.get()) {
+            return;
+        }
+
+        final long now = System.currentTimeMillis();
+        final F.RedeemablePromise<Option<String>> waiting;
+        final Pending next;
+        lock.lock();
+        try {
+            final Pending previous = pending.get(key);
+            if (previous != null) {
+                pending.put(key, new Pending(message, previous.enqueuedAt));
+                coalescedCount.incrementAndGet();
+            } else {
+                if (pending.size() >= maxQueueSize) {
+                    final Iterator<Pending> eldest = pending.values().iterator();
+                    eldest.next();
+                    eldest.remove();
+                    droppedCount.incrementAndGet();
+                }
+                pending.put(key, new Pending(message, now));
+            }
+            //response is idle, hand the message over right away
+            waiting = this.waiting;
+            this.waiting = null;
+            next = waiting != null ? poll() : null;
+        } finally {
+            lock.unlock();
+        }
+        if (waiting != null) {
+            waiting.success(Option.apply(delivered(next).message));
+            return;
+        }
+
+        final long lagMs = getLagMs();
+        if (lagMs > maxLagMs) {
+            logger.warn(String.format("SSE client %d is %d ms behind, disconnecting, dropped:%d", id, lagMs, droppedCount.get()));
+            disconnect();
+        }
+    }
+
+    void disconnect() {
+        if (closed.compareAndSet(false, true)) {
+            final F.RedeemablePromise<Option<String>> waiting;
+            lock.lock();
+            try {
+                pending.clear();
+                waiting = this.waiting;
+                this.waiting = null;
+            } finally {
+                lock.unlock();
+            }
+            if (waiting != null) {
+                waiting.success(Option.<String>empty());
+            }
+            onDisconnected.accept(this);
+        }
+    }
+
+    //pulled by the response once the previous message was written, empty ends the response
+    F.Promise<Option<String>> next() {
+        lock.lock();
+        try {
+            if (closed.get()) {
+                return F.Promise.pure(Option.<String>empty());
+            }
+            final Pending next = poll();
+            if (next == null) {
+                waiting = F.RedeemablePromise.empty();
+                return waiting;
+            }
+
+            return F.Promise.pure(Option.apply(delivered(next).message));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Pending delivered(final Pending next) {
+        deliveredCount.incrementAndGet();
+        lastDeliveryLagMs = System.currentTimeMillis() - next.enqueuedAt;
+
+        return next;
+    }
+
+    //caller holds lock
+    private Pending poll() {
+        final Iterator<Pending> eldest = pending.values().iterator();
+        if (!eldest.hasNext()) {
+            return null;
+        }
+        final Pending next = eldest.next();
+        eldest.remove();
+
+        return next;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public long getConnectedAt() {
+        return connectedAt;
+    }
+
+    public int getQueueSize() {
+        lock.lock();
+        try {
+            return pending.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * How long the oldest not yet delivered message has been waiting, 0 if client is up to date.
+     */
+    public long getLagMs() {
+        lock.lock();
+        try {
+            final Iterator<Map.Entry<String, Pending>> eldest = pending.entrySet().iterator();
+
+            return eldest.hasNext() ? System.currentTimeMillis() - eldest.next().getValue().enqueuedAt : 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getLastDeliveryLagMs() {
+        return lastDeliveryLagMs;
+    }
+
+    public long getDeliveredCount() {
+        return deliveredCount.get();
+    }
+
+    public long getCoalescedCount() {
+        return coalescedCount.get();
+    }
+
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    private static final class Pending {
+
+        private final String message;
+        private final long enqueuedAt;
+
+        private Pending(final String message, final long enqueuedAt) {
+            this.message = message;
+            this.enqueuedAt = enqueuedAt;
+        }
+
+    }
+
+}
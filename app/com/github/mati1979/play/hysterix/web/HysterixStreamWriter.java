@@ -0,0 +1,75 @@
+package com.github.mati1979.play.hysterix.web;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import play.libs.EventSource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes a single SSE message with a streaming JsonGenerator into a per thread, reusable buffer,
+ * the returned message is already formatted and can be shared by all connected clients.
+ * Also used for plain json responses of other actions.
+ */
+final class HysterixStreamWriter {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private static final int MAX_RETAINED_BUFFER_SIZE = 64 * 1024;
+
+    private static final ThreadLocal<ByteArrayOutputStream> BUFFER = ThreadLocal.withInitial(() -> new ByteArrayOutputStream(4096));
+
+    @FunctionalInterface
+    interface Body {
+
+        void write(JsonGenerator generator) throws IOException;
+
+    }
+
+    private HysterixStreamWriter() {
+    }
+
+    static String message(final Body body) {
+        final ByteArrayOutputStream buffer = BUFFER.get();
+        buffer.reset();
+        final String json;
+        try {
+            write(buffer, body);
+            //decodes straight from the buffer, without an intermediate byte array copy
+            json = buffer.toString(StandardCharsets.UTF_8.name());
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        if (buffer.size() > MAX_RETAINED_BUFFER_SIZE) {
+            //do not keep an unusually large buffer around for the lifetime of the thread
+            BUFFER.remove();
+        }
+
+        return EventSource.Event.event(json).formatted();
+    }
+
+    //plain json object, for one off responses which may be large, so the per thread buffer is not used
+    static byte[] json(final Body body) {
+        final ByteArrayOutputStream buffer = new ByteArrayOutputStream(4096);
+        try {
+            write(buffer, body);
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        return buffer.toByteArray();
+    }
+
+    private static void write(final ByteArrayOutputStream buffer, final Body body) throws IOException {
+        try (final JsonGenerator generator = JSON_FACTORY.createGenerator(buffer)) {
+            generator.writeStartObject();
+            body.write(generator);
+            generator.writeEndObject();
+        }
+    }
+
+}
@@ -0,0 +1,105 @@
+import com.github.mati1979.play.hysterix.HysterixCommand;
+import com.github.mati1979.play.hysterix.HysterixContext;
+import com.github.mati1979.play.hysterix.HysterixExecution;
+import com.github.mati1979.play.hysterix.HysterixRequestContext;
+import com.github.mati1979.play.hysterix.HysterixResponse;
+import com.github.mati1979.play.hysterix.HysterixSettings;
+import play.libs.F;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Commands of other web requests joining a call already in flight (global coalescing) make no remote call, checks that
+ * they are not rejected by a rate limiter whose only permit was taken by the call they join. Exits with status 1 on failure.
+ */
+public class CoalescingRateLimitTest {
+
+    private static final int FOLLOWERS = 5;
+
+    private static final List<String> failures = new ArrayList<>();
+
+    private static final AtomicInteger remoteCalls = new AtomicInteger();
+
+    private static final F.RedeemablePromise<String> remoteResponse = F.RedeemablePromise.empty();
+
+    public static void main(final String[] args) throws Exception {
+        final HysterixContext hysterixContext = HysterixContext.create(HysterixSettings.Builder.newBuilder()
+                .withGlobalCoalescingEnabled(true)
+                .withRateLimit("coalescing.command", 0.1D, 1)
+                .build());
+
+        final CompletableFuture<HysterixResponse<String>> leader = execute(hysterixContext);
+        final List<CompletableFuture<HysterixResponse<String>>> followers = new ArrayList<>();
+        for (int i = 0; i < FOLLOWERS; i++) {
+            followers.add(execute(hysterixContext));
+        }
+        remoteResponse.success("data");
+
+        check("data".equals(leader.get(5, TimeUnit.SECONDS).getResponse()), "leader did not get remote response");
+        for (final CompletableFuture<HysterixResponse<String>> follower : followers) {
+            final HysterixResponse<String> response = follower.get(5, TimeUnit.SECONDS);
+            check(!response.isRateLimited(), "follower rate limited");
+            check(response.isResponseCoalesced() && "data".equals(response.getResponse()), "follower did not join in-flight call");
+        }
+        check(remoteCalls.get() == 1, "remote calls:" + remoteCalls.get());
+
+        hysterixContext.shutdown();
+
+        if (!failures.isEmpty()) {
+            failures.forEach(failure -> System.out.println("FAILED: " + failure));
+            System.exit(1);
+        }
+        System.out.println("PASSED: coalesced commands take no rate limiter permit");
+        System.exit(0);
+    }
+
+    private static CompletableFuture<HysterixResponse<String>> execute(final HysterixContext hysterixContext) {
+        return new CoalescedCommand(HysterixRequestContext.create(hysterixContext)).executeStage(HysterixExecution.sameThread()).toCompletableFuture();
+    }
+
+    private static void check(final boolean invariant, final String message) {
+        if (!invariant) {
+            failures.add(message);
+        }
+    }
+
+    private static class CoalescedCommand extends HysterixCommand<String> {
+
+        private CoalescedCommand(final HysterixRequestContext hysterixRequestContext) {
+            super(hysterixRequestContext);
+        }
+
+        @Override
+        protected F.Promise<String> run() {
+            remoteCalls.incrementAndGet();
+            return remoteResponse;
+        }
+
+        @Override
+        public Optional<F.Promise<String>> getFallbackTo() {
+            return Optional.of(F.Promise.pure("fallback"));
+        }
+
+        @Override
+        public String getCommandKey() {
+            return "command";
+        }
+
+        @Override
+        public Optional<String> getCommandGroupKey() {
+            return Optional.of("coalescing");
+        }
+
+        @Override
+        public Optional<String> getCacheKey() {
+            return Optional.of("key");
+        }
+
+    }
+
+}
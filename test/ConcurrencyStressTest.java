@@ -0,0 +1,306 @@
+import com.github.mati1979.play.hysterix.HysterixCommand;
+import com.github.mati1979.play.hysterix.HysterixContext;
+import com.github.mati1979.play.hysterix.HysterixEventType;
+import com.github.mati1979.play.hysterix.HysterixExecutionPhase;
+import com.github.mati1979.play.hysterix.HysterixHttpRequestsCache;
+import com.github.mati1979.play.hysterix.HysterixRequestContext;
+import com.github.mati1979.play.hysterix.HysterixResponseMetadata;
+import com.github.mati1979.play.hysterix.HysterixSettings;
+import com.github.mati1979.play.hysterix.circuit.DefaultHysterixCircuitBreaker;
+import com.github.mati1979.play.hysterix.isolation.HysterixRateLimiter;
+import com.github.mati1979.play.hysterix.stats.HysterixStatisticsSnapshot;
+import com.github.mati1979.play.hysterix.stats.RollingHysterixGlobalStatistics;
+import play.libs.F;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hammers statistics, circuit breaker, request cache, response metadata and rate limiter from many threads at once
+ * and checks their invariants, exits with status 1 if any invariant is violated. Races are probabilistic, so every
+ * scenario runs for a number of rounds, run on a machine with several cores and increase rounds when chasing a bug.
+ */
+public class ConcurrencyStressTest {
+
+    private static final int THREADS = Math.max(4, Runtime.getRuntime().availableProcessors());
+
+    private static final int ROUNDS = 20;
+
+    private static final List<String> failures = new ArrayList<>();
+
+    public static void main(final String[] args) throws Exception {
+        scenario("statistics: notify, clearStats and reads", ConcurrencyStressTest::statistics);
+        scenario("circuit breaker: single test request and single close", ConcurrencyStressTest::circuitBreaker);
+        scenario("request cache: one remote call per cache key", ConcurrencyStressTest::requestCache);
+        scenario("response metadata: concurrent marks and reads", ConcurrencyStressTest::responseMetadata);
+        scenario("rate limiter: permits never exceed rate plus burst", ConcurrencyStressTest::rateLimiter);
+
+        if (!failures.isEmpty()) {
+            failures.forEach(failure -> System.out.println("FAILED: " + failure));
+            System.exit(1);
+        }
+        System.out.println("All invariants held.");
+        System.exit(0);
+    }
+
+    private static void statistics() throws Exception {
+        final HysterixSettings hysterixSettings = HysterixSettings.Builder.newBuilder().build();
+        final RollingHysterixGlobalStatistics stats = new RollingHysterixGlobalStatistics(hysterixSettings, "stress");
+        final HysterixResponseMetadata cacheHit = new StressMetadata(HysterixEventType.SUCCESS, HysterixEventType.RESPONSE_FROM_CACHE);
+        final HysterixResponseMetadata failure = new StressMetadata(HysterixEventType.FAILURE);
+        final HysterixResponseMetadata slowSuccess = new StressMetadata(HysterixEventType.SUCCESS, HysterixEventType.SLOW_CALL);
+
+        final AtomicBoolean running = new AtomicBoolean(true);
+        final Thread clearer = new Thread(() -> {
+            while (running.get()) {
+                stats.clearStats();
+                Thread.yield();
+            }
+        });
+        clearer.start();
+
+        concurrently(THREADS, thread -> {
+            for (int i = 0; i < 2000; i++) {
+                if (thread % 2 == 0) {
+                    stats.notify(i % 3 == 0 ? cacheHit : i % 3 == 1 ? failure : slowSuccess);
+                    continue;
+                }
+                final int errorPercentage = stats.getErrorPercentage();
+                check(errorPercentage >= 0 && errorPercentage <= 100, "error percentage out of range:" + errorPercentage);
+                final int slowCallPercentage = stats.getSlowCallPercentage();
+                check(slowCallPercentage >= 0 && slowCallPercentage <= 100, "slow call percentage out of range:" + slowCallPercentage);
+                final HysterixStatisticsSnapshot snapshot = stats.getSnapshot();
+                check(snapshot.getSuccessWithoutRequestCacheCount() >= 0, "negative success count:" + snapshot.getSuccessWithoutRequestCacheCount());
+                check(snapshot.getErrorCount() <= snapshot.getTotalCount(), "error count above total count:" + snapshot.getErrorCount() + ">" + snapshot.getTotalCount());
+            }
+        });
+
+        running.set(false);
+        clearer.join();
+    }
+
+    private static void circuitBreaker() throws Exception {
+        final long sleepWindowMs = 50;
+        final HysterixSettings hysterixSettings = HysterixSettings.Builder.newBuilder()
+                .withCircuitBreakerRequestVolumeThreshold(20)
+                .withCircuitBreakerErrorThresholdPercentage(50)
+                .withCircuitBreakerSleepWindowInMilliseconds(sleepWindowMs)
+                .build();
+        final RollingHysterixGlobalStatistics stats = new RollingHysterixGlobalStatistics(hysterixSettings, "stress");
+        final DefaultHysterixCircuitBreaker circuitBreaker = new DefaultHysterixCircuitBreaker("stress", "stress", stats, hysterixSettings);
+        final HysterixResponseMetadata failure = new StressMetadata(HysterixEventType.FAILURE);
+        for (int i = 0; i < 100; i++) {
+            stats.notify(failure);
+        }
+
+        concurrently(THREADS, thread -> circuitBreaker.isOpen());
+        check(circuitBreaker.isCircuitOpen(), "circuit did not open");
+        check(circuitBreaker.getTransitionCount() == 1, "circuit opened more than once, transitions:" + circuitBreaker.getTransitionCount());
+
+        Thread.sleep(sleepWindowMs + 10);
+        final AtomicInteger allowed = new AtomicInteger();
+        concurrently(THREADS, thread -> {
+            if (circuitBreaker.allowRequest()) {
+                allowed.incrementAndGet();
+            }
+        });
+        check(allowed.get() == 1, "half open circuit allowed " + allowed.get() + " test requests");
+
+        concurrently(THREADS, thread -> circuitBreaker.markSuccess());
+        check(!circuitBreaker.isCircuitOpen(), "circuit did not close");
+        check(circuitBreaker.getTransitionCount() == 2, "circuit closed more than once, transitions:" + circuitBreaker.getTransitionCount());
+    }
+
+    private static void requestCache() throws Exception {
+        final HysterixContext hysterixContext = HysterixContext.createDefault();
+        final HysterixRequestContext hysterixRequestContext = HysterixRequestContext.create(hysterixContext);
+        final HysterixHttpRequestsCache<String> cache = new HysterixHttpRequestsCache<>("stress");
+        final AtomicInteger remoteCalls = new AtomicInteger();
+        final AtomicInteger cacheHits = new AtomicInteger();
+        final F.RedeemablePromise<String> response = F.RedeemablePromise.empty();
+
+        concurrently(THREADS, thread -> {
+            final HysterixHttpRequestsCache.CacheResp<String> cacheResp = cache.execute(new StressCommand(hysterixRequestContext, remoteCalls, response))
+                    .get(5, TimeUnit.SECONDS);
+            if (cacheResp.isCacheHit()) {
+                cacheHits.incrementAndGet();
+            }
+            check("data".equals(cacheResp.getData()), "unexpected response:" + cacheResp.getData());
+        }, () -> response.success("data"));
+
+        check(remoteCalls.get() == 1, "remote called " + remoteCalls.get() + " times for a single cache key");
+        check(cacheHits.get() == THREADS - 1, "cache hits:" + cacheHits.get() + ", expected:" + (THREADS - 1));
+        hysterixContext.shutdown();
+    }
+
+    private static void responseMetadata() throws Exception {
+        final StressMetadata metadata = new StressMetadata();
+        final int marksPerThread = 1000;
+        final ConcurrentLinkedQueue<Throwable> errors = new ConcurrentLinkedQueue<>();
+
+        concurrently(THREADS, thread -> {
+            try {
+                for (int i = 0; i < marksPerThread; i++) {
+                    if (thread % 2 == 0) {
+                        metadata.mark(HysterixEventType.FAILURE);
+                        metadata.markPhase(i);
+                    } else {
+                        metadata.isError();
+                        metadata.getExecutionEvents();
+                        metadata.getPhaseDuration(HysterixExecutionPhase.QUEUED, HysterixExecutionPhase.COMPLETED, TimeUnit.NANOSECONDS);
+                    }
+                }
+            } catch (final RuntimeException e) {
+                errors.add(e);
+            }
+        });
+
+        check(errors.isEmpty(), "metadata threw under contention:" + errors.peek());
+        final int writers = (THREADS + 1) / 2;
+        check(metadata.getExecutionEvents().size() == writers * marksPerThread,
+                "lost execution events:" + metadata.getExecutionEvents().size() + ", expected:" + writers * marksPerThread);
+    }
+
+    private static void rateLimiter() throws Exception {
+        final double permitsPerSecond = 1000;
+        final int burst = 50;
+        final HysterixRateLimiter rateLimiter = new HysterixRateLimiter("stress", permitsPerSecond, burst);
+        final AtomicLong acquired = new AtomicLong();
+        final long started = System.nanoTime();
+
+        concurrently(THREADS, thread -> {
+            final long deadline = started + TimeUnit.MILLISECONDS.toNanos(100);
+            while (System.nanoTime() < deadline) {
+                if (rateLimiter.tryAcquire()) {
+                    acquired.incrementAndGet();
+                }
+            }
+        });
+
+        final double elapsedSeconds = (System.nanoTime() - started) / 1e9;
+        final long allowed = (long) Math.ceil(elapsedSeconds * permitsPerSecond) + burst;
+        check(acquired.get() <= allowed, "rate limiter handed out " + acquired.get() + " permits, at most " + allowed + " allowed");
+        check(acquired.get() >= burst, "rate limiter handed out only " + acquired.get() + " permits");
+    }
+
+    @FunctionalInterface
+    private interface Scenario {
+
+        void run() throws Exception;
+
+    }
+
+    @FunctionalInterface
+    private interface Worker {
+
+        void run(int thread) throws Exception;
+
+    }
+
+    private static void scenario(final String name, final Scenario scenario) throws Exception {
+        final int failuresBefore = failures.size();
+        for (int round = 0; round < ROUNDS && failures.size() == failuresBefore; round++) {
+            scenario.run();
+        }
+        System.out.println((failures.size() == failuresBefore ? "PASSED: " : "FAILED: ") + name);
+    }
+
+    private static void concurrently(final int threads, final Worker worker) throws InterruptedException {
+        concurrently(threads, worker, () -> {});
+    }
+
+    //starts all workers at once, then runs afterStart while they are running and waits for all of them
+    private static void concurrently(final int threads, final Worker worker, final Runnable afterStart) throws InterruptedException {
+        final CountDownLatch ready = new CountDownLatch(threads);
+        final CountDownLatch start = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(threads);
+        for (int i = 0; i < threads; i++) {
+            final int thread = i;
+            new Thread(() -> {
+                try {
+                    ready.countDown();
+                    start.await();
+                    worker.run(thread);
+                } catch (final Exception e) {
+                    check(false, "worker failed:" + e);
+                } finally {
+                    done.countDown();
+                }
+            }).start();
+        }
+
+        ready.await();
+        start.countDown();
+        afterStart.run();
+        done.await();
+    }
+
+    private static void check(final boolean invariant, final String message) {
+        if (!invariant) {
+            synchronized (failures) {
+                failures.add(message);
+            }
+        }
+    }
+
+    private static class StressMetadata extends HysterixResponseMetadata {
+
+        private StressMetadata(final HysterixEventType... eventTypes) {
+            for (final HysterixEventType eventType : eventTypes) {
+                mark(eventType);
+            }
+        }
+
+        private void mark(final HysterixEventType eventType) {
+            executionEvents.add(eventType);
+        }
+
+        private void markPhase(final int i) {
+            final HysterixExecutionPhase[] phases = HysterixExecutionPhase.values();
+            markPhase(phases[i % phases.length]);
+        }
+
+    }
+
+    private static class StressCommand extends HysterixCommand<String> {
+
+        private final AtomicInteger remoteCalls;
+        private final F.Promise<String> response;
+
+        private StressCommand(final HysterixRequestContext hysterixRequestContext, final AtomicInteger remoteCalls, final F.Promise<String> response) {
+            super(hysterixRequestContext);
+            this.remoteCalls = remoteCalls;
+            this.response = response;
+        }
+
+        @Override
+        protected F.Promise<String> run() {
+            return response;
+        }
+
+        @Override
+        protected F.Promise<String> callRemote() {
+            remoteCalls.incrementAndGet();
+            return response;
+        }
+
+        @Override
+        public String getCommandKey() {
+            return "stress";
+        }
+
+        @Override
+        public Optional<String> getCacheKey() {
+            return Optional.of("stress");
+        }
+
+    }
+
+}
@@ -0,0 +1,93 @@
+import com.github.mati1979.play.hysterix.HysterixCommand;
+import com.github.mati1979.play.hysterix.HysterixContext;
+import com.github.mati1979.play.hysterix.HysterixExecution;
+import com.github.mati1979.play.hysterix.HysterixRequestContext;
+import com.github.mati1979.play.hysterix.HysterixResponseMetadata;
+import com.github.mati1979.play.hysterix.HysterixSettings;
+import play.libs.F;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fallback semaphore is taken only when a command has a fallback to run: with no fallback permits at all a failing command
+ * without a fallback ends as a plain fallback failure, one with a fallback is rejected. Exits with status 1 on failure.
+ */
+public class FallbackSemaphoreTest {
+
+    private static final List<String> failures = new ArrayList<>();
+
+    public static void main(final String[] args) throws Exception {
+        final HysterixContext hysterixContext = HysterixContext.create(HysterixSettings.Builder.newBuilder()
+                .withFallbackIsolationSemaphoreMaxConcurrentRequests(0)
+                .build());
+
+        final HysterixResponseMetadata withoutFallback = execute(new FailingCommand(HysterixRequestContext.create(hysterixContext), false));
+        check(!withoutFallback.isFallbackRejected(), "command without fallback rejected by fallback semaphore");
+        check(withoutFallback.isFallbackFailed(), "command without fallback not marked as fallback failure");
+
+        final HysterixResponseMetadata withFallback = execute(new FailingCommand(HysterixRequestContext.create(hysterixContext), true));
+        check(withFallback.isFallbackRejected(), "command with fallback not rejected by fallback semaphore without permits");
+
+        hysterixContext.shutdown();
+
+        if (!failures.isEmpty()) {
+            failures.forEach(failure -> System.out.println("FAILED: " + failure));
+            System.exit(1);
+        }
+        System.out.println("PASSED: fallback semaphore taken only for an available fallback");
+        System.exit(0);
+    }
+
+    private static HysterixResponseMetadata execute(final FailingCommand command) throws Exception {
+        try {
+            command.executeStage(HysterixExecution.sameThread()).toCompletableFuture().get(5, TimeUnit.SECONDS);
+            failures.add("expected " + command + " to fail");
+        } catch (final ExecutionException e) {
+            //expected, neither command gets a fallback response
+        }
+
+        return command.getMetadata();
+    }
+
+    private static void check(final boolean invariant, final String message) {
+        if (!invariant) {
+            failures.add(message);
+        }
+    }
+
+    private static class FailingCommand extends HysterixCommand<String> {
+
+        private final boolean hasFallback;
+
+        private FailingCommand(final HysterixRequestContext hysterixRequestContext, final boolean hasFallback) {
+            super(hysterixRequestContext);
+            this.hasFallback = hasFallback;
+        }
+
+        @Override
+        protected F.Promise<String> run() {
+            return F.Promise.throwing(new IllegalStateException("failing"));
+        }
+
+        @Override
+        public Optional<F.Promise<String>> getFallbackTo() {
+            return hasFallback ? Optional.of(F.Promise.pure("fallback")) : Optional.empty();
+        }
+
+        @Override
+        public String getCommandKey() {
+            return hasFallback ? "withFallback" : "withoutFallback";
+        }
+
+        @Override
+        public Optional<String> getCommandGroupKey() {
+            return Optional.of("fallbackSemaphore");
+        }
+
+    }
+
+}
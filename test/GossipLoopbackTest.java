@@ -0,0 +1,120 @@
+import com.github.mati1979.play.hysterix.HysterixContext;
+import com.github.mati1979.play.hysterix.HysterixEventType;
+import com.github.mati1979.play.hysterix.HysterixResponseMetadata;
+import com.github.mati1979.play.hysterix.HysterixSettings;
+import com.github.mati1979.play.hysterix.circuit.DefaultHysterixCircuitBreaker;
+import com.github.mati1979.play.hysterix.circuit.HysterixCircuitOpenReason;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetSocketAddress;
+import java.net.SocketException;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Starts two gossiping contexts on 127.0.0.1, opens a circuit on the first one and checks that the second one opens
+ * its circuit for the same command with PEER_QUORUM, then checks that a packet from an address which is not a peer
+ * is ignored, exits with status 1 on failure.
+ */
+public class GossipLoopbackTest {
+
+    private static final String GROUP = "gossip";
+    private static final String KEY = "loopback";
+    private static final String FORGED_KEY = "forged";
+
+    private static final long TIMEOUT_MS = 5000;
+
+    public static void main(final String[] args) throws Exception {
+        final int portA = freePort();
+        final int portB = freePort();
+        final HysterixContext contextA = HysterixContext.create(settings(portA, portB));
+        final HysterixContext contextB = HysterixContext.create(settings(portB, portA));
+
+        boolean passed = false;
+        try {
+            final DefaultHysterixCircuitBreaker circuitBreakerA = contextA.getHysterixCircuitBreakerHolder().getCircuitBreaker(GROUP, KEY);
+            final HysterixResponseMetadata failure = new FailureMetadata();
+            for (int i = 0; i < 20; i++) {
+                circuitBreakerA.getRollingHysterixGlobalStatistics().notify(failure);
+            }
+            if (!circuitBreakerA.isOpen()) {
+                System.out.println("FAILED: circuit did not open on the first node");
+                System.exit(1);
+            }
+
+            final DefaultHysterixCircuitBreaker circuitBreakerB = contextB.getHysterixCircuitBreakerHolder().getCircuitBreaker(GROUP, KEY);
+            final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(TIMEOUT_MS);
+            while (System.nanoTime() < deadline && !circuitBreakerB.isOpen()) {
+                Thread.sleep(20);
+            }
+
+            final Optional<HysterixCircuitOpenReason> reason = circuitBreakerB.getLastOpenReason();
+            final boolean openedFromGossip = circuitBreakerB.isCircuitOpen() && reason.equals(Optional.of(HysterixCircuitOpenReason.PEER_QUORUM));
+            System.out.println((openedFromGossip ? "PASSED: " : "FAILED: ") + "second node opened from gossip, open:"
+                    + circuitBreakerB.isCircuitOpen() + ",reason:" + reason);
+
+            sendForged(portB);
+            Thread.sleep(500);
+            final DefaultHysterixCircuitBreaker forgedCircuitBreakerB = contextB.getHysterixCircuitBreakerHolder().getCircuitBreaker(GROUP, FORGED_KEY);
+            final boolean forgedIgnored = !forgedCircuitBreakerB.isOpen();
+            System.out.println((forgedIgnored ? "PASSED: " : "FAILED: ") + "packet from unknown address ignored, open:"
+                    + forgedCircuitBreakerB.isCircuitOpen());
+
+            passed = openedFromGossip && forgedIgnored;
+        } finally {
+            contextA.shutdown();
+            contextB.shutdown();
+        }
+
+        System.exit(passed ? 0 : 1);
+    }
+
+    private static HysterixSettings settings(final int bindPort, final int peerPort) {
+        return HysterixSettings.Builder.newBuilder()
+                .withCircuitBreakerRequestVolumeThreshold(10)
+                .withCircuitBreakerErrorThresholdPercentage(50)
+                .withGossipEnabled(true)
+                .withGossipBindAddress("127.0.0.1:" + bindPort)
+                .withGossipPeers("127.0.0.1:" + peerPort)
+                .withGossipIntervalMs(100)
+                .build();
+    }
+
+    //a packet in gossip format claiming the circuit is open, sent from an address which is not a configured peer
+    private static void sendForged(final int port) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(1);
+        out.writeUTF("forged-node");
+        out.writeShort(1);
+        out.writeUTF(GROUP);
+        out.writeUTF(FORGED_KEY);
+        out.writeBoolean(true);
+        out.writeInt(0);
+        out.writeInt(0);
+        out.flush();
+        final byte[] data = bytes.toByteArray();
+        try (final DatagramSocket socket = new DatagramSocket(0)) {
+            socket.send(new DatagramPacket(data, data.length, new InetSocketAddress("127.0.0.1", port)));
+        }
+    }
+
+    private static int freePort() throws SocketException {
+        try (final DatagramSocket socket = new DatagramSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static class FailureMetadata extends HysterixResponseMetadata {
+
+        private FailureMetadata() {
+            executionEvents.add(HysterixEventType.FAILURE);
+        }
+
+    }
+
+}
@@ -0,0 +1,66 @@
+import com.github.mati1979.play.hysterix.HysterixResponseMetadata;
+import com.github.mati1979.play.hysterix.HysterixSettings;
+import com.github.mati1979.play.hysterix.circuit.DefaultHysterixCircuitBreaker;
+import com.github.mati1979.play.hysterix.circuit.GroupHysterixCircuitBreaker;
+import com.github.mati1979.play.hysterix.stats.RollingHysterixGlobalStatistics;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A request refused by an open group circuit must not use up the single test request of its command's open circuit,
+ * exits with status 1 on failure.
+ */
+public class GroupCircuitBreakerTest {
+
+    private static final long SLEEP_WINDOW_MS = 100;
+
+    private static final List<String> failures = new ArrayList<>();
+
+    public static void main(final String[] args) throws Exception {
+        final HysterixSettings hysterixSettings = HysterixSettings.Builder.newBuilder()
+                .withCircuitBreakerRequestVolumeThreshold(1)
+                .withCircuitBreakerErrorThresholdPercentage(50)
+                .withCircuitBreakerSleepWindowInMilliseconds(SLEEP_WINDOW_MS)
+                .build();
+        final DefaultHysterixCircuitBreaker commandCircuitBreaker = open(hysterixSettings, "command");
+        //command circuit is ready for its single test, group circuit opens only now and is still within its sleep window
+        Thread.sleep(SLEEP_WINDOW_MS + 20);
+        final DefaultHysterixCircuitBreaker groupCircuitBreaker = open(hysterixSettings, "");
+        final GroupHysterixCircuitBreaker circuitBreaker = new GroupHysterixCircuitBreaker(groupCircuitBreaker, commandCircuitBreaker);
+
+        check(!circuitBreaker.allowRequest(), "request allowed while group circuit is within its sleep window");
+        check(commandCircuitBreaker.allowSingleTest(), "command single test taken by a request the group refused");
+
+        if (!failures.isEmpty()) {
+            failures.forEach(failure -> System.out.println("FAILED: " + failure));
+            System.exit(1);
+        }
+        System.out.println("PASSED: group circuit checked before command single test");
+        System.exit(0);
+    }
+
+    private static DefaultHysterixCircuitBreaker open(final HysterixSettings hysterixSettings, final String commandKey) {
+        final RollingHysterixGlobalStatistics stats = new RollingHysterixGlobalStatistics(hysterixSettings, "group." + commandKey);
+        stats.notify(new FailedMetadata());
+        final DefaultHysterixCircuitBreaker circuitBreaker = new DefaultHysterixCircuitBreaker("group", commandKey, stats, hysterixSettings);
+        check(circuitBreaker.isOpen(), "circuit not opened:" + commandKey);
+
+        return circuitBreaker;
+    }
+
+    private static void check(final boolean invariant, final String message) {
+        if (!invariant) {
+            failures.add(message);
+        }
+    }
+
+    private static class FailedMetadata extends HysterixResponseMetadata {
+
+        private FailedMetadata() {
+            markFailure();
+        }
+
+    }
+
+}
@@ -0,0 +1,88 @@
+import com.github.mati1979.play.hysterix.HysterixCommand;
+import com.github.mati1979.play.hysterix.HysterixContext;
+import com.github.mati1979.play.hysterix.HysterixRequestContext;
+import com.github.mati1979.play.hysterix.isolation.HysterixRateLimiter;
+import com.github.mati1979.play.hysterix.isolation.HysterixRateLimiterHolder;
+import play.libs.F;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Checks that a command resolves to its own rate limiter before its group's one and that limits added or removed
+ * at runtime are picked up by commands which already resolved their limiter, exits with status 1 on failure.
+ */
+public class RateLimiterHolderTest {
+
+    private static final List<String> failures = new ArrayList<>();
+
+    public static void main(final String[] args) {
+        final HysterixContext hysterixContext = HysterixContext.createDefault();
+        final HysterixRequestContext hysterixRequestContext = HysterixRequestContext.create(hysterixContext);
+        final HysterixRateLimiterHolder holder = hysterixContext.getHysterixRateLimiterHolder();
+        final LimitedCommand command = new LimitedCommand(hysterixRequestContext, "limited");
+        final LimitedCommand other = new LimitedCommand(hysterixRequestContext, "other");
+
+        check(!holder.findRateLimiter(command).isPresent(), "command limited without any limit");
+
+        final HysterixRateLimiter groupRateLimiter = holder.setRateLimit("group", 10, 1);
+        check(holder.findRateLimiter(command).equals(Optional.of(groupRateLimiter)), "command did not pick up group limit");
+        check(holder.findRateLimiter(other).equals(Optional.of(groupRateLimiter)), "other command did not pick up group limit");
+
+        final HysterixRateLimiter commandRateLimiter = holder.setRateLimit("group.limited", 20, 2);
+        check(holder.findRateLimiter(command).equals(Optional.of(commandRateLimiter)), "command limit did not take precedence over group limit");
+        check(holder.findRateLimiter(other).equals(Optional.of(groupRateLimiter)), "command limit applied to other command");
+
+        check(holder.setRateLimit("group.limited", 30, 3) == commandRateLimiter, "adjusting a limit replaced its rate limiter");
+        check(holder.findRateLimiter(command).equals(Optional.of(commandRateLimiter)), "adjusted limit not found");
+
+        holder.removeRateLimit("group.limited");
+        check(holder.findRateLimiter(command).equals(Optional.of(groupRateLimiter)), "command did not fall back to group limit");
+
+        holder.removeRateLimit("group");
+        check(!holder.findRateLimiter(command).isPresent(), "command still limited after limits were removed");
+
+        hysterixContext.shutdown();
+
+        if (!failures.isEmpty()) {
+            failures.forEach(failure -> System.out.println("FAILED: " + failure));
+            System.exit(1);
+        }
+        System.out.println("PASSED: rate limiter lookup");
+        System.exit(0);
+    }
+
+    private static void check(final boolean invariant, final String message) {
+        if (!invariant) {
+            failures.add(message);
+        }
+    }
+
+    private static class LimitedCommand extends HysterixCommand<String> {
+
+        private final String commandKey;
+
+        private LimitedCommand(final HysterixRequestContext hysterixRequestContext, final String commandKey) {
+            super(hysterixRequestContext);
+            this.commandKey = commandKey;
+        }
+
+        @Override
+        protected F.Promise<String> run() {
+            return F.Promise.pure("data");
+        }
+
+        @Override
+        public String getCommandKey() {
+            return commandKey;
+        }
+
+        @Override
+        public Optional<String> getCommandGroupKey() {
+            return Optional.of("group");
+        }
+
+    }
+
+}
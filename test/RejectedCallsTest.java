@@ -0,0 +1,109 @@
+import com.github.mati1979.play.hysterix.HysterixCommand;
+import com.github.mati1979.play.hysterix.HysterixContext;
+import com.github.mati1979.play.hysterix.HysterixExecution;
+import com.github.mati1979.play.hysterix.HysterixRequestContext;
+import com.github.mati1979.play.hysterix.HysterixSettings;
+import com.github.mati1979.play.hysterix.circuit.DefaultHysterixCircuitBreaker;
+import com.github.mati1979.play.hysterix.stats.RollingHysterixGlobalStatistics;
+import play.libs.F;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rate limited and deadline exceeded calls of a command without a fallback are turned away by this node, checks that they
+ * do not count towards the error percentage and do not open the circuit, exits with status 1 on failure.
+ */
+public class RejectedCallsTest {
+
+    private static final int CALLS = 100;
+
+    private static final List<String> failures = new ArrayList<>();
+
+    public static void main(final String[] args) throws Exception {
+        final HysterixContext hysterixContext = HysterixContext.create(HysterixSettings.Builder.newBuilder()
+                .withCircuitBreakerRequestVolumeThreshold(5)
+                .withCircuitBreakerErrorThresholdPercentage(50)
+                .build());
+
+        hysterixContext.getHysterixRateLimiterHolder().setRateLimit("rejected.rateLimited", 1, 1);
+        final int rateLimited = executeAll(HysterixRequestContext.create(hysterixContext), "rateLimited");
+        check(rateLimited >= CALLS - 2, "expected calls to be rate limited, failed:" + rateLimited);
+        checkCircuitClosed(hysterixContext, "rateLimited");
+
+        final HysterixRequestContext expiredRequestContext = HysterixRequestContext.create(hysterixContext, 1, TimeUnit.NANOSECONDS);
+        Thread.sleep(1);
+        final int deadlineExceeded = executeAll(expiredRequestContext, "deadlineExceeded");
+        check(deadlineExceeded == CALLS, "expected all calls to exceed deadline, failed:" + deadlineExceeded);
+        checkCircuitClosed(hysterixContext, "deadlineExceeded");
+
+        hysterixContext.shutdown();
+
+        if (!failures.isEmpty()) {
+            failures.forEach(failure -> System.out.println("FAILED: " + failure));
+            System.exit(1);
+        }
+        System.out.println("PASSED: rejected calls do not open the circuit");
+        System.exit(0);
+    }
+
+    //returns number of failed calls
+    private static int executeAll(final HysterixRequestContext hysterixRequestContext, final String commandKey) throws Exception {
+        int failed = 0;
+        for (int i = 0; i < CALLS; i++) {
+            final CompletableFuture<?> future = new NoFallbackCommand(hysterixRequestContext, commandKey).executeStage(HysterixExecution.sameThread())
+                    .toCompletableFuture();
+            try {
+                future.get(5, TimeUnit.SECONDS);
+            } catch (final java.util.concurrent.ExecutionException e) {
+                failed++;
+            }
+        }
+
+        return failed;
+    }
+
+    private static void checkCircuitClosed(final HysterixContext hysterixContext, final String commandKey) {
+        final DefaultHysterixCircuitBreaker circuitBreaker = hysterixContext.getHysterixCircuitBreakerHolder().getCircuitBreaker("rejected", commandKey);
+        final RollingHysterixGlobalStatistics stats = circuitBreaker.getRollingHysterixGlobalStatistics();
+        check(stats.getErrorPercentage() == 0, commandKey + ": error percentage:" + stats.getErrorPercentage());
+        check(stats.getExceptionsThrownCount() == 0, commandKey + ": exceptions thrown:" + stats.getExceptionsThrownCount());
+        check(!circuitBreaker.isOpen(), commandKey + ": circuit opened, reason:" + circuitBreaker.getLastOpenReason());
+    }
+
+    private static void check(final boolean invariant, final String message) {
+        if (!invariant) {
+            failures.add(message);
+        }
+    }
+
+    private static class NoFallbackCommand extends HysterixCommand<String> {
+
+        private final String commandKey;
+
+        private NoFallbackCommand(final HysterixRequestContext hysterixRequestContext, final String commandKey) {
+            super(hysterixRequestContext);
+            this.commandKey = commandKey;
+        }
+
+        @Override
+        protected F.Promise<String> run() {
+            return F.Promise.pure("data");
+        }
+
+        @Override
+        public String getCommandKey() {
+            return commandKey;
+        }
+
+        @Override
+        public Optional<String> getCommandGroupKey() {
+            return Optional.of("rejected");
+        }
+
+    }
+
+}
@@ -0,0 +1,152 @@
+import com.github.mati1979.play.hysterix.HysterixCommand;
+import com.github.mati1979.play.hysterix.HysterixContext;
+import com.github.mati1979.play.hysterix.HysterixExecution;
+import com.github.mati1979.play.hysterix.HysterixLastKnownGoodCache;
+import com.github.mati1979.play.hysterix.HysterixRequestContext;
+import com.github.mati1979.play.hysterix.HysterixResponse;
+import com.github.mati1979.play.hysterix.HysterixSettings;
+import com.github.mati1979.play.hysterix.circuit.DefaultHysterixCircuitBreaker;
+import play.libs.F;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Background revalidation of last known good cache: it is bound by command's own timeout rather than by an exhausted
+ * request deadline and with an open circuit it runs as circuit's half open single test, closing it on success.
+ * Exits with status 1 on failure.
+ */
+public class RevalidationTest {
+
+    private static final String REQUEST_CACHE_KEY = "revalidation.command.key";
+    private static final long SLEEP_WINDOW_MS = 200;
+
+    private static final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+
+    private static final List<String> failures = new ArrayList<>();
+
+    private static volatile boolean healthy = true;
+    private static volatile long delayMs = 0;
+    private static final AtomicInteger version = new AtomicInteger();
+
+    public static void main(final String[] args) throws Exception {
+        final HysterixContext hysterixContext = HysterixContext.create(HysterixSettings.Builder.newBuilder()
+                .withLastKnownGoodCacheEnabled(true)
+                .withLastKnownGoodCacheRevalidate(true)
+                .withCircuitBreakerRequestVolumeThreshold(2)
+                .withCircuitBreakerErrorThresholdPercentage(50)
+                .withCircuitBreakerSleepWindowInMilliseconds(SLEEP_WINDOW_MS)
+                .build());
+        final HysterixLastKnownGoodCache lastKnownGoodCache = hysterixContext.getHysterixLastKnownGoodCache();
+
+        final String first = execute(HysterixRequestContext.create(hysterixContext));
+        check("v1".equals(first), "expected fresh response, got:" + first);
+
+        //request deadline runs out long before remote call completes, revalidation keeps going on its own
+        delayMs = 100;
+        final HysterixResponse<String> stale = new RevalidatedCommand(HysterixRequestContext.create(hysterixContext, 20, TimeUnit.MILLISECONDS))
+                .executeStage(HysterixExecution.sameThread()).toCompletableFuture().get(5, TimeUnit.SECONDS);
+        check(stale.isResponseStale() && "v1".equals(stale.getResponse()), "expected stale v1, got:" + stale.getResponse());
+        check(await(() -> "v3".equals(lastKnownGoodCache.<String>get(REQUEST_CACHE_KEY).map(HysterixLastKnownGoodCache.Entry::getValue).orElse(null))),
+                "revalidation bound by request deadline, last known good:" + lastKnownGoodCache.get(REQUEST_CACHE_KEY).map(HysterixLastKnownGoodCache.Entry::getValue));
+        delayMs = 0;
+
+        //open circuit, stale responses are served meanwhile
+        healthy = false;
+        final DefaultHysterixCircuitBreaker circuitBreaker = hysterixContext.getHysterixCircuitBreakerHolder().getCircuitBreaker("revalidation", "command");
+        for (int i = 0; i < 10 && !circuitBreaker.isOpen(); i++) {
+            execute(HysterixRequestContext.create(hysterixContext));
+        }
+        check(circuitBreaker.isOpen(), "expected circuit to open");
+
+        //calls with an exhausted deadline never reach the breaker, only revalidation can take its single test
+        healthy = true;
+        Thread.sleep(SLEEP_WINDOW_MS + 50);
+        final HysterixRequestContext expiredRequestContext = HysterixRequestContext.create(hysterixContext, 1, TimeUnit.NANOSECONDS);
+        Thread.sleep(1);
+        final HysterixResponse<String> shortCircuitedStale = new RevalidatedCommand(expiredRequestContext)
+                .executeStage(HysterixExecution.sameThread()).toCompletableFuture().get(5, TimeUnit.SECONDS);
+        check(shortCircuitedStale.isResponseStale(), "expected stale response with exhausted deadline");
+        check(await(() -> !circuitBreaker.isCircuitOpen()), "revalidation did not close the circuit");
+
+        hysterixContext.shutdown();
+        scheduler.shutdownNow();
+
+        if (!failures.isEmpty()) {
+            failures.forEach(failure -> System.out.println("FAILED: " + failure));
+            System.exit(1);
+        }
+        System.out.println("PASSED: revalidation outlives request deadline and closes an open circuit");
+        System.exit(0);
+    }
+
+    private static String execute(final HysterixRequestContext hysterixRequestContext) throws Exception {
+        return new RevalidatedCommand(hysterixRequestContext).executeStage(HysterixExecution.sameThread()).toCompletableFuture()
+                .get(5, TimeUnit.SECONDS).getResponse();
+    }
+
+    private static boolean await(final BooleanSupplier condition) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + 2000;
+        while (System.currentTimeMillis() < deadline) {
+            if (condition.getAsBoolean()) {
+                return true;
+            }
+            Thread.sleep(10);
+        }
+
+        return condition.getAsBoolean();
+    }
+
+    private static void check(final boolean invariant, final String message) {
+        if (!invariant) {
+            failures.add(message);
+        }
+    }
+
+    private static class RevalidatedCommand extends HysterixCommand<String> {
+
+        private RevalidatedCommand(final HysterixRequestContext hysterixRequestContext) {
+            super(hysterixRequestContext);
+        }
+
+        @Override
+        protected F.Promise<String> run() {
+            if (!healthy) {
+                return F.Promise.throwing(new IllegalStateException("unhealthy"));
+            }
+
+            final String data = "v" + version.incrementAndGet();
+            if (delayMs <= 0) {
+                return F.Promise.pure(data);
+            }
+
+            final F.RedeemablePromise<String> promise = F.RedeemablePromise.empty();
+            scheduler.schedule(() -> promise.success(data), delayMs, TimeUnit.MILLISECONDS);
+
+            return promise;
+        }
+
+        @Override
+        public String getCommandKey() {
+            return "command";
+        }
+
+        @Override
+        public Optional<String> getCommandGroupKey() {
+            return Optional.of("revalidation");
+        }
+
+        @Override
+        public Optional<String> getCacheKey() {
+            return Optional.of("key");
+        }
+
+    }
+
+}
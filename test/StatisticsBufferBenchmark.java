@@ -0,0 +1,91 @@
+import com.github.mati1979.play.hysterix.HysterixResponseMetadata;
+import com.github.mati1979.play.hysterix.HysterixSettings;
+import com.github.mati1979.play.hysterix.stats.HysterixStatisticsBuffer;
+import com.github.mati1979.play.hysterix.stats.RollingHysterixGlobalStatistics;
+import com.google.common.base.Stopwatch;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares direct statistics recording with thread local buffering (statisticsBufferEnabled) for 1 to 32 threads,
+ * all threads record into the same command statistics. Buffered time includes the final flush, so both numbers cover
+ * all events reaching the statistics. Scaling is throughput relative to a single thread, run on a machine with at least
+ * 32 cores to see it, beyond available processors threads only time-share. Dropped is the share of latency samples
+ * overwritten in thread local buffers before a flush merged them, counts are never dropped.
+ */
+public class StatisticsBufferBenchmark {
+
+    private static final int EVENTS_PER_THREAD = 200000;
+
+    public static void main(final String[] args) throws Exception {
+        final HysterixSettings hysterixSettings = HysterixSettings.Builder.newBuilder().build();
+        final HysterixResponseMetadata metadata = new SuccessMetadata();
+        System.out.println("available processors:" + Runtime.getRuntime().availableProcessors());
+
+        double directSingleThread = 0;
+        double bufferedSingleThread = 0;
+        for (int threads = 1; threads <= 32; threads *= 2) {
+            final long events = (long) threads * EVENTS_PER_THREAD;
+
+            final RollingHysterixGlobalStatistics direct = new RollingHysterixGlobalStatistics(hysterixSettings, "direct");
+            final long directMs = run(threads, () -> direct.notify(metadata));
+
+            final RollingHysterixGlobalStatistics buffered = new RollingHysterixGlobalStatistics(hysterixSettings, "buffered");
+            final HysterixStatisticsBuffer buffer = new HysterixStatisticsBuffer(hysterixSettings.getStatisticsBufferFlushIntervalMs());
+            final Stopwatch bufferedStopwatch = Stopwatch.createStarted();
+            run(threads, () -> buffer.record(buffered, metadata));
+            buffer.shutdown();
+            final long bufferedMs = bufferedStopwatch.elapsed(TimeUnit.MILLISECONDS);
+
+            final double directThroughput = (double) events / Math.max(directMs, 1);
+            final double bufferedThroughput = (double) events / Math.max(bufferedMs, 1);
+            final long samples = buffer.getMergedSampleCount() + buffer.getDroppedSampleCount();
+            final double droppedPercentage = samples > 0 ? 100D * buffer.getDroppedSampleCount() / samples : 0;
+            if (threads == 1) {
+                directSingleThread = directThroughput;
+                bufferedSingleThread = bufferedThroughput;
+            }
+
+            System.out.println(String.format("threads:%2d, direct:%6d ms (%6d ops/ms, scaling x%.2f), buffered:%6d ms (%6d ops/ms, scaling x%.2f, dropped samples %5.1f%%)%s",
+                    threads,
+                    directMs, Math.round(directThroughput), directThroughput / directSingleThread,
+                    bufferedMs, Math.round(bufferedThroughput), bufferedThroughput / bufferedSingleThread, droppedPercentage,
+                    buffered.getSuccessCount() == events ? "" : ", LOST EVENTS, buffered count:" + buffered.getSuccessCount()));
+        }
+    }
+
+    private static long run(final int threads, final Runnable recording) throws InterruptedException {
+        final CountDownLatch start = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(threads);
+        for (int i = 0; i < threads; i++) {
+            new Thread(() -> {
+                try {
+                    start.await();
+                    for (int j = 0; j < EVENTS_PER_THREAD; j++) {
+                        recording.run();
+                    }
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            }).start();
+        }
+
+        final Stopwatch stopwatch = Stopwatch.createStarted();
+        start.countDown();
+        done.await();
+
+        return stopwatch.elapsed(TimeUnit.MILLISECONDS);
+    }
+
+    private static class SuccessMetadata extends HysterixResponseMetadata {
+
+        private SuccessMetadata() {
+            markSuccess();
+        }
+
+    }
+
+}
@@ -0,0 +1,72 @@
+package com.github.mati1979.play.hysterix.stats;
+
+import com.github.mati1979.play.hysterix.HysterixEventType;
+import com.github.mati1979.play.hysterix.HysterixResponseMetadata;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Checks that history labels every second exactly once whatever the ticker timing: repeated or early ticks do not label
+ * a second twice and missed ticks are caught up with empty seconds, exits with status 1 on failure.
+ * In the package of HysterixStatisticsHistory to drive its ticker by hand.
+ */
+public class StatisticsHistoryTest {
+
+    private static final long FIRST_EPOCH_SECOND = 1000;
+
+    private static final List<String> failures = new ArrayList<>();
+
+    public static void main(final String[] args) {
+        final HysterixStatisticsHistory history = new HysterixStatisticsHistory(60, FIRST_EPOCH_SECOND);
+
+        record(history, 1);
+        history.tick(millis(FIRST_EPOCH_SECOND + 1));
+        //ticker fired twice within one second
+        record(history, 2);
+        history.tick(millis(FIRST_EPOCH_SECOND + 1) + 999);
+        //ticker was late, three seconds passed since its previous run
+        record(history, 3);
+        history.tick(millis(FIRST_EPOCH_SECOND + 5));
+
+        final HysterixStatisticsHistory.Series series = history.getSeries(0, 60).get();
+        final long[] expectedEpochSeconds = { FIRST_EPOCH_SECOND, FIRST_EPOCH_SECOND + 1, FIRST_EPOCH_SECOND + 2, FIRST_EPOCH_SECOND + 3, FIRST_EPOCH_SECOND + 4 };
+        final long[] expectedCounts = { 1, 2, 0, 0, 3 };
+        check(series.size() == expectedEpochSeconds.length, "seconds:" + series.size() + ", expected:" + expectedEpochSeconds.length);
+        for (int i = 0; i < Math.min(series.size(), expectedEpochSeconds.length); i++) {
+            check(series.getEpochSecond(i) == expectedEpochSeconds[i], "second " + i + ":" + series.getEpochSecond(i) + ", expected:" + expectedEpochSeconds[i]);
+            check(series.getCount(i, HysterixEventType.SUCCESS) == expectedCounts[i],
+                    "second " + i + " successes:" + series.getCount(i, HysterixEventType.SUCCESS) + ", expected:" + expectedCounts[i]);
+        }
+
+        history.shutdown();
+
+        if (!failures.isEmpty()) {
+            failures.forEach(failure -> System.out.println("FAILED: " + failure));
+            System.exit(1);
+        }
+        System.out.println("PASSED: statistics history labels every second once");
+        System.exit(0);
+    }
+
+    private static void record(final HysterixStatisticsHistory history, final int successes) {
+        for (int i = 0; i < successes; i++) {
+            history.record(0, new HysterixResponseMetadata() {
+                {
+                    markSuccess();
+                }
+            });
+        }
+    }
+
+    private static long millis(final long epochSecond) {
+        return epochSecond * 1000;
+    }
+
+    private static void check(final boolean invariant, final String message) {
+        if (!invariant) {
+            failures.add(message);
+        }
+    }
+
+}
@@ -0,0 +1,92 @@
+package com.github.mati1979.play.hysterix.web;
+
+import play.api.libs.iteratee.Iteratee$;
+import play.libs.F;
+import scala.Option;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Checks that an SSE client queue drains only as fast as its consumer pulls: a consumer which does not read gets
+ * its queue bounded, messages dropped and is disconnected once it lags too much, exits with status 1 on failure.
+ * In the package of HysterixStreamClient since the client is not public.
+ */
+public class HysterixStreamClientTest {
+
+    private static final int MAX_QUEUE_SIZE = 10;
+    private static final long MAX_LAG_MS = 200;
+
+    private static final List<String> failures = new ArrayList<>();
+
+    public static void main(final String[] args) throws Exception {
+        final ExecutorService deliveryExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            final Thread thread = new Thread(runnable);
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        nonReadingConsumer(deliveryExecutor);
+        response(deliveryExecutor);
+
+        deliveryExecutor.shutdownNow();
+
+        if (!failures.isEmpty()) {
+            failures.forEach(failure -> System.out.println("FAILED: " + failure));
+            System.exit(1);
+        }
+        System.out.println("PASSED: stream client back pressure");
+        System.exit(0);
+    }
+
+    private static void nonReadingConsumer(final ExecutorService deliveryExecutor) throws Exception {
+        final AtomicInteger disconnected = new AtomicInteger();
+        final HysterixStreamClient client = new HysterixStreamClient(MAX_QUEUE_SIZE, MAX_LAG_MS, deliveryExecutor, c -> {}, c -> disconnected.incrementAndGet());
+
+        //consumer waits for the first message, which is handed over as soon as it is offered
+        final F.Promise<Option<String>> first = client.next();
+        client.offer("key-0", "message-0");
+        check("message-0".equals(first.get(1000).getOrElse(null)), "first message not handed over to waiting consumer");
+
+        //consumer stops reading, nothing is pulled any more
+        for (int i = 1; i <= 100; i++) {
+            client.offer("key-" + i, "message-" + i);
+        }
+        check(client.getQueueSize() == MAX_QUEUE_SIZE, "queue not bounded, size:" + client.getQueueSize());
+        check(client.getDroppedCount() == 100 - MAX_QUEUE_SIZE, "dropped:" + client.getDroppedCount() + ", expected:" + (100 - MAX_QUEUE_SIZE));
+        check(client.getDeliveredCount() == 1, "delivered to a consumer which does not read:" + client.getDeliveredCount());
+
+        Thread.sleep(MAX_LAG_MS + 50);
+        client.offer("key-late", "message-late");
+        check(disconnected.get() == 1, "lagging consumer not disconnected, disconnects:" + disconnected.get());
+        check(client.getQueueSize() == 0, "queue of disconnected client not cleared, size:" + client.getQueueSize());
+        check(!client.next().get(1000).isDefined(), "disconnected client still returns messages");
+    }
+
+    private static void response(final ExecutorService deliveryExecutor) throws Exception {
+        final AtomicInteger connected = new AtomicInteger();
+        final AtomicInteger disconnected = new AtomicInteger();
+        final HysterixStreamClient client = new HysterixStreamClient(MAX_QUEUE_SIZE, MAX_LAG_MS, deliveryExecutor,
+                c -> connected.incrementAndGet(), c -> disconnected.incrementAndGet());
+
+        final play.api.mvc.Result result = client.toResult().toScala();
+        client.offer("key", "message");
+        //reads a single chunk and stops, which ends the response
+        final Option<byte[]> chunk = F.Promise.wrap(result.body().run(Iteratee$.MODULE$.<byte[]>head())).get(1000);
+        check(connected.get() == 1, "client not connected");
+        check(chunk.isDefined() && new String(chunk.get(), StandardCharsets.UTF_8).contains("message"), "message not written to response");
+        Thread.sleep(100);
+        check(disconnected.get() == 1, "client not disconnected once response ended, disconnects:" + disconnected.get());
+    }
+
+    private static void check(final boolean invariant, final String message) {
+        if (!invariant) {
+            failures.add(message);
+        }
+    }
+
+}